@@ -5,16 +5,17 @@ import android.support.annotation.NonNull;
 
 import javax.inject.Singleton;
 
+import fr.guddy.androidstarter.IEnvironment;
 import fr.guddy.androidstarter.persistence.DatabaseHelperAndroidStarter;
 
 @Singleton
 public class MockDatabaseHelperAndroidStarter extends DatabaseHelperAndroidStarter {
     private static final String DATABASE_NAME = "mock_android_starter.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 6;
 
     //region Constructor
-    public MockDatabaseHelperAndroidStarter(@NonNull final Context poContext) {
-        super(poContext, DATABASE_NAME, null, DATABASE_VERSION);
+    public MockDatabaseHelperAndroidStarter(@NonNull final Context poContext, @NonNull final IEnvironment poEnvironment) {
+        super(poContext, DATABASE_NAME, null, DATABASE_VERSION, poEnvironment);
     }
     //endregion
 }
@@ -7,6 +7,7 @@ import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import fr.guddy.androidstarter.IEnvironment;
 import fr.guddy.androidstarter.di.modules.ModuleDatabase;
 import fr.guddy.androidstarter.persistence.DatabaseHelperAndroidStarter;
 
@@ -15,7 +16,7 @@ public class MockModuleDatabase extends ModuleDatabase {
 
     @Provides
     @Singleton
-    public DatabaseHelperAndroidStarter provideDatabaseHelperAndroidStarter(@NonNull final Context poContext) {
-        return new MockDatabaseHelperAndroidStarter(poContext);
+    public DatabaseHelperAndroidStarter provideDatabaseHelperAndroidStarter(@NonNull final Context poContext, @NonNull final IEnvironment poEnvironment) {
+        return new MockDatabaseHelperAndroidStarter(poContext, poEnvironment);
     }
 }
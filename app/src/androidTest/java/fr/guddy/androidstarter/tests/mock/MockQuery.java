@@ -0,0 +1,101 @@
+package fr.guddy.androidstarter.tests.mock;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish;
+import fr.guddy.androidstarter.rest.queries.AbstractQuery;
+import retrofit2.Call;
+
+/**
+ * Query running a given task instead of calling an endpoint, to test what {@link AbstractQuery} provides.
+ */
+public class MockQuery extends AbstractQuery {
+
+    //region Fields
+    private final String mInFlightKey;
+    private final transient Task mTask;
+    private final transient CountDownLatch mFinishLatch = new CountDownLatch(1);
+    //endregion
+
+    //region Constructor
+
+    /**
+     * @param poTask run by {@link #execute()}, null to do nothing
+     */
+    public MockQuery(final Priority poPriority, final String psInFlightKey, final Task poTask, final String... psTags) {
+        super(poPriority, false, null, 0L, poPriority.defaultRetryPolicy, psTags);
+        mInFlightKey = psInFlightKey;
+        mTask = poTask;
+    }
+    //endregion
+
+    //region Visible API
+
+    /**
+     * Calls the task on the calling thread as if this query were running it, see {@link AbstractQuery#getCurrentPriority()}.
+     */
+    public <T> T callWithPriority(final Callable<T> poTask) throws Exception {
+        return withPriority(poTask).call();
+    }
+
+    /**
+     * Registers a call made by the task, so that cancelling the query aborts it.
+     */
+    public <T> Call<T> registerCall(@NonNull final Call<T> poCall) {
+        return register(poCall);
+    }
+
+    /**
+     * @return true if the query posted its result before the timeout
+     */
+    public boolean awaitFinish(final long plTimeoutMs) throws InterruptedException {
+        return mFinishLatch.await(plTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isSuccess() {
+        return mSuccess;
+    }
+
+    public AbstractEventQueryDidFinish.ErrorType getErrorType() {
+        return mErrorType;
+    }
+    //endregion
+
+    //region Overridden methods
+    @Override
+    public String getInFlightKey() {
+        return mInFlightKey;
+    }
+
+    @Override
+    public void inject() {
+    }
+
+    @Override
+    protected void execute() throws Exception {
+        if (mTask != null) {
+            mTask.run(this);
+        }
+    }
+
+    @Override
+    protected void postEventQueryFinished() {
+        mFinishLatch.countDown();
+    }
+
+    @Override
+    public void postEventQueryFinishedNoNetwork() {
+        mFinishLatch.countDown();
+    }
+    //endregion
+
+    //region Task definition
+    public interface Task {
+        void run(@NonNull final MockQuery poQuery) throws Exception;
+    }
+    //endregion
+}
@@ -3,6 +3,7 @@ package fr.guddy.androidstarter.tests.parsing;
 import android.support.test.InstrumentationRegistry;
 import android.test.suitebuilder.annotation.LargeTest;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.polok.localify.LocalifyClient;
 
@@ -12,10 +13,14 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import fr.guddy.androidstarter.rest.dto.DTORepo;
+import fr.guddy.androidstarter.rest.dto.DTORepoProjection;
+import fr.guddy.androidstarter.rest.streaming.RepoStreamParser;
 import fr.guddy.androidstarter.test.R;
 
 import static com.google.common.truth.Truth.assertThat;
@@ -95,5 +100,76 @@ public class TestParsing {
             assertThat(lloRepoAsArrayDTO.get(0).name).isEqualTo("git-consortium");
         }
     }
+
+    @Frutilla(
+            Given = "Multiple GitHub repos from a JSON file",
+            When = "Parsing this content as a stream",
+            Then = "It should have emitted a repo named \"git-consortium\" with its owner's avatar"
+    )
+    @Test
+    public void test_StreamParse_JSONArrayRepo_EmitsRepoProjections() throws Exception {
+        String lsRepoDataAsArray;
+        Given:
+        {
+            lsRepoDataAsArray = mLocalifyClient.localify().loadRawFile(R.raw.repos_octocat);
+        }
+
+        final List<DTORepoProjection> lloRepos = new ArrayList<>();
+        int liCount;
+        When:
+        {
+            liCount = RepoStreamParser.parse(new ByteArrayInputStream(lsRepoDataAsArray.getBytes("UTF-8")), lloRepos::add);
+        }
+
+        Then:
+        {
+            assertThat(liCount).isEqualTo(1);
+            assertThat(lloRepos).hasSize(1);
+            assertThat(lloRepos.get(0).id).isEqualTo(18221276);
+            assertThat(lloRepos.get(0).name).isEqualTo("git-consortium");
+            assertThat(lloRepos.get(0).description).isEqualTo("This repo is for demonstration purposes only.");
+            assertThat(lloRepos.get(0).avatarUrl).isEqualTo("https://avatars.githubusercontent.com/u/583231?v=3");
+        }
+    }
+
+    @Frutilla(
+            Given = "Multiple GitHub repos from a JSON file",
+            When = "Parsing this content with Jackson, as full DTOs and as projections",
+            Then = "The projections should hold the same values as the stored fields of the full DTOs"
+    )
+    @Test
+    public void test_Parse_JSONArrayRepo_ProjectionMatchesDTO() throws IOException {
+        ObjectMapper loJSONMapper;
+        String lsRepoDataAsArray;
+        Given:
+        {
+            loJSONMapper = new ObjectMapper();
+            lsRepoDataAsArray = mLocalifyClient.localify().loadRawFile(R.raw.repos_octocat);
+        }
+
+        DTORepos lloRepoAsArrayDTO;
+        List<DTORepoProjection> lloProjections;
+        When:
+        {
+            lloRepoAsArrayDTO = loJSONMapper.readValue(lsRepoDataAsArray, DTORepos.class);
+            lloProjections = loJSONMapper.readerFor(new TypeReference<List<DTORepoProjection>>() {
+            }).readValue(lsRepoDataAsArray);
+        }
+
+        Then:
+        {
+            assertThat(lloProjections).hasSize(lloRepoAsArrayDTO.size());
+            for (int liIndex = 0; liIndex < lloProjections.size(); liIndex++) {
+                final DTORepo loRepoDTO = lloRepoAsArrayDTO.get(liIndex);
+                final DTORepoProjection loProjection = lloProjections.get(liIndex);
+                assertThat(loProjection.id).isEqualTo(loRepoDTO.id);
+                assertThat(loProjection.name).isEqualTo(loRepoDTO.name);
+                assertThat(loProjection.description).isEqualTo(loRepoDTO.description);
+                assertThat(loProjection.url).isEqualTo(loRepoDTO.url);
+                assertThat(loProjection.avatarUrl).isEqualTo(loRepoDTO.owner.avatarUrl);
+                assertThat(loProjection.updatedAt).isEqualTo(loRepoDTO.updatedAt);
+            }
+        }
+    }
     //endregion
 }
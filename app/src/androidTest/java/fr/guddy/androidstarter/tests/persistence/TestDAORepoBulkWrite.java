@@ -0,0 +1,274 @@
+package fr.guddy.androidstarter.tests.persistence;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.j256.ormlite.android.AndroidConnectionSource;
+import com.j256.ormlite.stmt.DeleteBuilder;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.guddy.androidstarter.persistence.dao.BulkWriteResult;
+import fr.guddy.androidstarter.persistence.dao.DAORepo;
+import fr.guddy.androidstarter.persistence.dao.IRxDao;
+import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestDAORepoBulkWrite {
+    private static final String OWNER = "RoRoche";
+    private static final String OTHER_OWNER = "JakeWharton";
+
+    //region Fields
+    private SQLiteDatabase mDatabase;
+    private DAORepo mDAORepo;
+    //endregion
+
+    //region Test lifecycle
+    @Before
+    public void setUp() throws Exception {
+        mDatabase = SQLiteDatabase.create(null);
+        final ConnectionSource loConnectionSource = new AndroidConnectionSource(mDatabase);
+        TableUtils.createTable(loConnectionSource, RepoEntity.class);
+        mDAORepo = new DAORepo(loConnectionSource);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mDatabase.close();
+    }
+    //endregion
+
+    //region Test methods
+    @Frutilla(
+            Given = "A stored repo, renamed, and a new repo",
+            When = "Upserting both",
+            Then = "It should update the first one, create the second one, and count them apart"
+    )
+    @Test
+    public void test_UpsertAll_WithStoredAndNewRepos_UpdatesAndCreates() throws Exception {
+        RepoEntity loStoredRepo;
+        Given:
+        {
+            loStoredRepo = newRepo(1, "AndroidStarter", OWNER, null);
+            mDAORepo.create(loStoredRepo);
+            loStoredRepo.name = "AndroidStarterAlt";
+        }
+
+        BulkWriteResult loResult;
+        When:
+        {
+            loResult = mDAORepo.upsertAll(Arrays.asList(loStoredRepo, newRepo(2, "okhttp", OWNER, null)));
+        }
+
+        Then:
+        {
+            assertThat(loResult.created).isEqualTo(1);
+            assertThat(loResult.updated).isEqualTo(1);
+            assertThat(loResult.deleted).isEqualTo(0);
+            assertThat(namesOf(mDAORepo.queryForAll())).containsExactly("AndroidStarterAlt", "okhttp");
+        }
+    }
+
+    @Frutilla(
+            Given = "More new repos than a chunk holds",
+            When = "Upserting them",
+            Then = "It should create every one of them, over several transactions"
+    )
+    @Test
+    public void test_UpsertAll_WithSeveralChunks_CreatesEveryRepo() throws Exception {
+        final int liCount = IRxDao.BULK_CHUNK_SIZE * 2 + 1;
+        List<RepoEntity> lloRepos;
+        Given:
+        {
+            lloRepos = new ArrayList<>(liCount);
+            for (int liIndex = 0; liIndex < liCount; liIndex++) {
+                lloRepos.add(newRepo(liIndex, "repo" + liIndex, OWNER, null));
+            }
+        }
+
+        BulkWriteResult loResult;
+        When:
+        {
+            loResult = mDAORepo.upsertAll(lloRepos);
+        }
+
+        Then:
+        {
+            assertThat(loResult.created).isEqualTo(liCount);
+            assertThat(mDAORepo.countOf()).isEqualTo((long) liCount);
+        }
+    }
+
+    @Frutilla(
+            Given = "Three stored repos",
+            When = "Replacing them with two other repos",
+            Then = "Only the two new repos should be stored"
+    )
+    @Test
+    public void test_ReplaceAll_WithStoredRepos_KeepsNewReposOnly() throws Exception {
+        Given:
+        {
+            for (int liIndex = 1; liIndex <= 3; liIndex++) {
+                mDAORepo.create(newRepo(liIndex, "old" + liIndex, OWNER, null));
+            }
+        }
+
+        BulkWriteResult loResult;
+        When:
+        {
+            loResult = mDAORepo.replaceAll(Arrays.asList(newRepo(4, "new4", OWNER, null), newRepo(5, "new5", OWNER, null)));
+        }
+
+        Then:
+        {
+            assertThat(loResult.deleted).isEqualTo(3);
+            assertThat(loResult.created).isEqualTo(2);
+            assertThat(namesOf(mDAORepo.queryForAll())).containsExactly("new4", "new5");
+        }
+    }
+
+    @Frutilla(
+            Given = "Repos stored for two owners",
+            When = "Replacing the repos of the first owner only",
+            Then = "The repos of the other owner should be kept"
+    )
+    @Test
+    public void test_ReplaceAll_WithPreparedDelete_KeepsOtherRows() throws Exception {
+        Given:
+        {
+            mDAORepo.create(newRepo(1, "AndroidStarter", OWNER, null));
+            mDAORepo.create(newRepo(2, "butterknife", OTHER_OWNER, null));
+        }
+
+        BulkWriteResult loResult;
+        When:
+        {
+            final DeleteBuilder<RepoEntity, Long> loDeleteBuilder = mDAORepo.deleteBuilder();
+            loDeleteBuilder.where().eq(RepoEntity.COLUMN_OWNER, OWNER);
+            loResult = mDAORepo.rxReplaceAll(loDeleteBuilder.prepare(), Arrays.asList(newRepo(3, "Frutilla", OWNER, null)))
+                    .toBlocking()
+                    .single();
+        }
+
+        Then:
+        {
+            assertThat(loResult.deleted).isEqualTo(1);
+            assertThat(loResult.created).isEqualTo(1);
+            assertThat(namesOf(mDAORepo.queryForAll())).containsExactly("butterknife", "Frutilla");
+        }
+    }
+
+    @Frutilla(
+            Given = "A stored repo, updated since on GitHub, and a new repo",
+            When = "Upserting both by GitHub id",
+            Then = "It should update the stored row in place and create the new one"
+    )
+    @Test
+    public void test_UpsertByGitHubId_WithChangedAndNewRepos_UpdatesInPlaceAndCreates() throws Exception {
+        long llRowId;
+        Given:
+        {
+            final RepoEntity loStoredRepo = newRepo(1, "AndroidStarter", OWNER, "2017-03-01T00:00:00Z");
+            mDAORepo.create(loStoredRepo);
+            llRowId = loStoredRepo.getBaseId();
+        }
+
+        BulkWriteResult loResult;
+        When:
+        {
+            loResult = mDAORepo.upsertByGitHubId(Arrays.asList(
+                    newRepo(1, "AndroidStarterAlt", OWNER, "2017-03-02T00:00:00Z"),
+                    newRepo(2, "okhttp", OWNER, "2017-03-02T00:00:00Z")));
+        }
+
+        Then:
+        {
+            assertThat(loResult.created).isEqualTo(1);
+            assertThat(loResult.updated).isEqualTo(1);
+            final RepoEntity loRepo = mDAORepo.queryForGitHubId(1);
+            assertThat(loRepo.getBaseId()).isEqualTo(llRowId);
+            assertThat(loRepo.name).isEqualTo("AndroidStarterAlt");
+            assertThat(mDAORepo.countOf()).isEqualTo(2L);
+        }
+    }
+
+    @Frutilla(
+            Given = "A stored repo",
+            When = "Upserting it by GitHub id with the same update date",
+            Then = "Nothing should be written"
+    )
+    @Test
+    public void test_UpsertByGitHubId_WithUnchangedRepo_WritesNothing() throws Exception {
+        Given:
+        {
+            mDAORepo.create(newRepo(1, "AndroidStarter", OWNER, "2017-03-01T00:00:00Z"));
+        }
+
+        BulkWriteResult loResult;
+        When:
+        {
+            loResult = mDAORepo.upsertByGitHubId(Arrays.asList(newRepo(1, "AndroidStarter", OWNER, "2017-03-01T00:00:00Z")));
+        }
+
+        Then:
+        {
+            assertThat(loResult.getWrittenCount()).isEqualTo(0);
+            assertThat(mDAORepo.countOf()).isEqualTo(1L);
+        }
+    }
+
+    @Frutilla(
+            Given = "A repo listed twice in the same batch, as when it shifts between two pages",
+            When = "Upserting the batch by GitHub id",
+            Then = "It should be stored once, with its last values"
+    )
+    @Test
+    public void test_UpsertByGitHubId_WithDuplicateRepo_StoresItOnce() throws Exception {
+        BulkWriteResult loResult;
+        When:
+        {
+            loResult = mDAORepo.upsertByGitHubId(Arrays.asList(
+                    newRepo(1, "AndroidStarter", OWNER, "2017-03-01T00:00:00Z"),
+                    newRepo(1, "AndroidStarterAlt", OWNER, "2017-03-02T00:00:00Z")));
+        }
+
+        Then:
+        {
+            assertThat(loResult.created).isEqualTo(1);
+            assertThat(loResult.updated).isEqualTo(1);
+            assertThat(namesOf(mDAORepo.queryForAll())).containsExactly("AndroidStarterAlt");
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private static RepoEntity newRepo(final int piId, final String psName, final String psOwner, final String psUpdatedAt) {
+        final RepoEntity loRepo = new RepoEntity();
+        loRepo.id = piId;
+        loRepo.name = psName;
+        loRepo.owner = psOwner;
+        loRepo.updatedAt = psUpdatedAt;
+        return loRepo;
+    }
+
+    private static List<String> namesOf(final List<RepoEntity> ploRepos) {
+        final List<String> lloNames = new ArrayList<>(ploRepos.size());
+        for (final RepoEntity loRepo : ploRepos) {
+            lloNames.add(loRepo.name);
+        }
+        return lloNames;
+    }
+    //endregion
+}
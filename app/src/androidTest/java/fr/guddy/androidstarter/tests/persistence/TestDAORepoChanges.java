@@ -0,0 +1,243 @@
+package fr.guddy.androidstarter.tests.persistence;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.j256.ormlite.android.AndroidConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import fr.guddy.androidstarter.persistence.dao.DAORepo;
+import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestDAORepoChanges {
+    private static final String OWNER = "RoRoche";
+    private static final long TIMEOUT_MS = 5000L;
+
+    //region Fields
+    private SQLiteDatabase mDatabase;
+    private DAORepo mDAORepo;
+    private TestSubscriber<String> mTableChangesSubscriber;
+    private Subscription mTableChangesSubscription;
+    //endregion
+
+    //region Test lifecycle
+    @Before
+    public void setUp() throws Exception {
+        mDatabase = SQLiteDatabase.create(null);
+        final ConnectionSource loConnectionSource = new AndroidConnectionSource(mDatabase);
+        TableUtils.createTable(loConnectionSource, RepoEntity.class);
+        mDAORepo = new DAORepo(loConnectionSource);
+        mTableChangesSubscriber = new TestSubscriber<>();
+        mTableChangesSubscription = mDAORepo.rxTableChanges().subscribe(mTableChangesSubscriber);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mTableChangesSubscription.unsubscribe();
+        mDatabase.close();
+    }
+    //endregion
+
+    //region Test methods
+    @Frutilla(
+            Given = "A subscriber to the changes of the repo table",
+            When = "Creating a repo",
+            Then = "It should be told once that the repo table changed"
+    )
+    @Test
+    public void test_Create_WithSubscriber_SignalsTableChange() throws Exception {
+        When:
+        {
+            mDAORepo.create(newRepo(1, "AndroidStarter", "2017-03-01T00:00:00Z"));
+        }
+
+        Then:
+        {
+            mTableChangesSubscriber.assertValues(mDAORepo.getTableName());
+        }
+    }
+
+    @Frutilla(
+            Given = "A subscriber to the changes of the repo table",
+            When = "Upserting three repos in a single transaction",
+            Then = "It should be told once, when the transaction ends"
+    )
+    @Test
+    public void test_UpsertAll_WithSubscriber_SignalsSingleTableChange() throws Exception {
+        When:
+        {
+            mDAORepo.upsertAll(Arrays.asList(
+                    newRepo(1, "AndroidStarter", null),
+                    newRepo(2, "okhttp", null),
+                    newRepo(3, "retrofit", null)));
+        }
+
+        Then:
+        {
+            mTableChangesSubscriber.assertValueCount(1);
+        }
+    }
+
+    @Frutilla(
+            Given = "A subscriber to the changes of the repo table",
+            When = "Deleting the repos of an owner having none",
+            Then = "It should not be told anything, no row having changed"
+    )
+    @Test
+    public void test_Delete_WithoutMatchingRow_SignalsNothing() throws Exception {
+        When:
+        {
+            mDAORepo.deleteForOwner(OWNER);
+        }
+
+        Then:
+        {
+            mTableChangesSubscriber.assertNoValues();
+        }
+    }
+
+    @Frutilla(
+            Given = "A live query over the repos of an owner",
+            When = "Creating a repo for this owner",
+            Then = "It should emit the repos again, with the new one"
+    )
+    @Test
+    public void test_RxLiveQuery_WithWrite_EmitsAgain() throws Exception {
+        TestSubscriber<List<RepoEntity>> loSubscriber;
+        Given:
+        {
+            mDAORepo.create(newRepo(1, "AndroidStarter", null));
+            loSubscriber = new TestSubscriber<>();
+            mDAORepo.rxLiveQuery(mDAORepo.rxQueryForOwner(OWNER), 0L).subscribe(loSubscriber);
+            assertThat(loSubscriber.awaitValueCount(1, TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        }
+
+        When:
+        {
+            mDAORepo.create(newRepo(2, "okhttp", null));
+        }
+
+        Then:
+        {
+            assertThat(loSubscriber.awaitValueCount(2, TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+            assertThat(loSubscriber.getOnNextEvents().get(0)).hasSize(1);
+            assertThat(loSubscriber.getOnNextEvents().get(1)).hasSize(2);
+            loSubscriber.unsubscribe();
+        }
+    }
+
+    @Frutilla(
+            Given = "A repo read once by its row id",
+            When = "Reading it again",
+            Then = "It should be served by the entity cache"
+    )
+    @Test
+    public void test_QueryForId_WithRepoRead_HitsEntityCache() throws Exception {
+        RepoEntity loFirstRead;
+        Given:
+        {
+            final RepoEntity loRepo = newRepo(1, "AndroidStarter", null);
+            mDAORepo.create(loRepo);
+            loFirstRead = mDAORepo.queryForId(loRepo.getBaseId());
+        }
+
+        RepoEntity loSecondRead;
+        int liHitCount;
+        When:
+        {
+            liHitCount = mDAORepo.getEntityCache().getHitCount();
+            loSecondRead = mDAORepo.queryForId(loFirstRead.getBaseId());
+        }
+
+        Then:
+        {
+            assertThat(loSecondRead).isSameAs(loFirstRead);
+            assertThat(mDAORepo.getEntityCache().getHitCount()).isEqualTo(liHitCount + 1);
+        }
+    }
+
+    @Frutilla(
+            Given = "The repos of an owner read once, and so cached",
+            When = "Renaming one of them by GitHub id",
+            Then = "The entity cache should be emptied, and a read should return the new name"
+    )
+    @Test
+    public void test_UpsertByGitHubId_WithCachedRepos_InvalidatesEntityCache() throws Exception {
+        long llRowId;
+        Given:
+        {
+            mDAORepo.create(newRepo(1, "AndroidStarter", "2017-03-01T00:00:00Z"));
+            mDAORepo.create(newRepo(2, "okhttp", "2017-03-01T00:00:00Z"));
+            mDAORepo.queryForOwner(OWNER);
+            assertThat(mDAORepo.getEntityCache().getSize()).isEqualTo(2);
+            llRowId = mDAORepo.queryForGitHubId(1).getBaseId();
+        }
+
+        When:
+        {
+            mDAORepo.upsertByGitHubId(Arrays.asList(newRepo(1, "AndroidStarterAlt", "2017-03-02T00:00:00Z")));
+        }
+
+        Then:
+        {
+            assertThat(mDAORepo.getEntityCache().getSize()).isEqualTo(0);
+            assertThat(mDAORepo.queryForId(llRowId).name).isEqualTo("AndroidStarterAlt");
+        }
+    }
+
+    @Frutilla(
+            Given = "The generation of the entity cache, read before a query",
+            When = "A write happens before the query result is put in the cache",
+            Then = "The stale result should not be cached"
+    )
+    @Test
+    public void test_PutAll_AfterWrite_DropsStaleEntities() throws Exception {
+        long llGeneration;
+        List<RepoEntity> lloStaleRepos;
+        Given:
+        {
+            mDAORepo.create(newRepo(1, "AndroidStarter", null));
+            llGeneration = mDAORepo.getEntityCache().getGeneration();
+            lloStaleRepos = mDAORepo.queryForAll();
+        }
+
+        When:
+        {
+            mDAORepo.create(newRepo(2, "okhttp", null));
+            mDAORepo.getEntityCache().putAll(llGeneration, lloStaleRepos);
+        }
+
+        Then:
+        {
+            assertThat(mDAORepo.getEntityCache().getSize()).isEqualTo(0);
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private static RepoEntity newRepo(final int piId, final String psName, final String psUpdatedAt) {
+        final RepoEntity loRepo = new RepoEntity();
+        loRepo.id = piId;
+        loRepo.name = psName;
+        loRepo.owner = OWNER;
+        loRepo.updatedAt = psUpdatedAt;
+        return loRepo;
+    }
+    //endregion
+}
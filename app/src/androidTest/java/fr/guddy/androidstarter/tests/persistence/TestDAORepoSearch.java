@@ -0,0 +1,249 @@
+package fr.guddy.androidstarter.tests.persistence;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.j256.ormlite.android.AndroidConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.guddy.androidstarter.persistence.dao.DAORepo;
+import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import fr.guddy.androidstarter.persistence.migrations.MigrationV6RepoSearch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestDAORepoSearch {
+
+    //region Fields
+    private SQLiteDatabase mDatabase;
+    private DAORepo mDAORepo;
+    //endregion
+
+    //region Test lifecycle
+    @Before
+    public void setUp() throws Exception {
+        mDatabase = SQLiteDatabase.create(null);
+        final ConnectionSource loConnectionSource = new AndroidConnectionSource(mDatabase);
+        TableUtils.createTable(loConnectionSource, RepoEntity.class);
+        new MigrationV6RepoSearch().migrate(mDatabase);
+        mDAORepo = new DAORepo(loConnectionSource);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mDatabase.close();
+    }
+    //endregion
+
+    //region Test methods
+    @Frutilla(
+            Given = "Stored repos, two of them having a word starting with \"andr\"",
+            When = "Searching for \"andr\"",
+            Then = "It should return these two repos only"
+    )
+    @Test
+    public void test_Search_WithPrefix_ReturnsMatchingRepos() throws Exception {
+        Given:
+        {
+            createRepo(1, "AndroidStarter", "A sample Android app");
+            createRepo(2, "android-architecture", "Samples");
+            createRepo(3, "RxJava", "Reactive Extensions for the JVM");
+        }
+
+        List<RepoEntity> lloRepos;
+        When:
+        {
+            lloRepos = mDAORepo.search("andr", 10);
+        }
+
+        Then:
+        {
+            assertThat(namesOf(lloRepos)).containsExactly("AndroidStarter", "android-architecture");
+        }
+    }
+
+    @Frutilla(
+            Given = "Stored repos, one of them having words starting with both \"Android\" and \"arch\"",
+            When = "Searching for \"Android arch\"",
+            Then = "It should return this repo only"
+    )
+    @Test
+    public void test_Search_WithSeveralWords_ReturnsReposMatchingEveryWord() throws Exception {
+        Given:
+        {
+            createRepo(1, "AndroidStarter", "A sample Android app");
+            createRepo(2, "android-architecture", "Samples");
+        }
+
+        List<RepoEntity> lloRepos;
+        When:
+        {
+            lloRepos = mDAORepo.search("Android arch", 10);
+        }
+
+        Then:
+        {
+            assertThat(namesOf(lloRepos)).containsExactly("android-architecture");
+        }
+    }
+
+    @Frutilla(
+            Given = "A repo mentioning \"OkHttp\" in its description, stored before a repo named \"okhttp\"",
+            When = "Searching for \"okhttp\"",
+            Then = "It should return the repo named after it first"
+    )
+    @Test
+    public void test_Search_WithNameAndDescriptionMatches_RanksNameMatchFirst() throws Exception {
+        Given:
+        {
+            createRepo(1, "retrofit", "Type-safe HTTP client built on OkHttp");
+            createRepo(2, "okhttp", "An HTTP client");
+        }
+
+        List<RepoEntity> lloRepos;
+        When:
+        {
+            lloRepos = mDAORepo.search("okhttp", 10);
+        }
+
+        Then:
+        {
+            assertThat(namesOf(lloRepos)).containsExactly("okhttp", "retrofit").inOrder();
+        }
+    }
+
+    @Frutilla(
+            Given = "Two repos matching \"okhttp\"",
+            When = "Searching for \"okhttp\" reactively, for one repo at most",
+            Then = "It should emit the best match only"
+    )
+    @Test
+    public void test_RxSearch_WithLimit_EmitsBestMatch() throws Exception {
+        Given:
+        {
+            createRepo(1, "retrofit", "Type-safe HTTP client built on OkHttp");
+            createRepo(2, "okhttp", "An HTTP client");
+        }
+
+        List<RepoEntity> lloRepos;
+        When:
+        {
+            lloRepos = mDAORepo.rxSearch("okhttp", 1).toBlocking().single();
+        }
+
+        Then:
+        {
+            assertThat(namesOf(lloRepos)).containsExactly("okhttp");
+        }
+    }
+
+    @Frutilla(
+            Given = "A repo mentioning \"okhttp\" three times, stored before many repos mentioning it once",
+            When = "Searching for \"okhttp\", for one repo at most",
+            Then = "It should return this repo"
+    )
+    @Test
+    public void test_Search_WithBestMatchAmongCandidates_ReturnsIt() throws Exception {
+        Given:
+        {
+            createRepo(1, "client", "okhttp okhttp okhttp");
+            for (int liIndex = 0; liIndex < DAORepo.SEARCH_CANDIDATE_LIMIT; liIndex++) {
+                createRepo(liIndex + 2, "sample" + liIndex, "Built on okhttp");
+            }
+        }
+
+        List<RepoEntity> lloRepos;
+        When:
+        {
+            lloRepos = mDAORepo.search("okhttp", 1);
+        }
+
+        Then:
+        {
+            assertThat(namesOf(lloRepos)).containsExactly("client");
+        }
+    }
+
+    @Frutilla(
+            Given = "A repo mentioning \"okhttp\" three times, stored after more repos mentioning it once than a search ranks",
+            When = "Searching for \"okhttp\", for one repo at most",
+            Then = "It should miss this repo, the ranking being approximate past the candidate limit"
+    )
+    @Test
+    public void test_Search_WithBestMatchPastCandidateLimit_MissesIt() throws Exception {
+        Given:
+        {
+            for (int liIndex = 0; liIndex < DAORepo.SEARCH_CANDIDATE_LIMIT; liIndex++) {
+                createRepo(liIndex + 2, "sample" + liIndex, "Built on okhttp");
+            }
+            createRepo(1, "client", "okhttp okhttp okhttp");
+        }
+
+        List<RepoEntity> lloRepos;
+        When:
+        {
+            lloRepos = mDAORepo.search("okhttp", 1);
+        }
+
+        Then:
+        {
+            assertThat(lloRepos).hasSize(1);
+            assertThat(namesOf(lloRepos)).doesNotContain("client");
+        }
+    }
+
+    @Frutilla(
+            Given = "A stored repo",
+            When = "Searching for FTS operators only",
+            Then = "It should return nothing"
+    )
+    @Test
+    public void test_Search_WithOperatorsOnly_ReturnsNothing() throws Exception {
+        Given:
+        {
+            createRepo(1, "AndroidStarter", "A sample Android app");
+        }
+
+        List<RepoEntity> lloRepos;
+        When:
+        {
+            lloRepos = mDAORepo.search("\"* - ()", 10);
+        }
+
+        Then:
+        {
+            assertThat(lloRepos).isEmpty();
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private void createRepo(final int piId, final String psName, final String psDescription) throws Exception {
+        final RepoEntity loRepo = new RepoEntity();
+        loRepo.id = piId;
+        loRepo.name = psName;
+        loRepo.description = psDescription;
+        loRepo.owner = "RoRoche";
+        mDAORepo.create(loRepo);
+    }
+
+    private static List<String> namesOf(final List<RepoEntity> ploRepos) {
+        final List<String> lloNames = new ArrayList<>(ploRepos.size());
+        for (final RepoEntity loRepo : ploRepos) {
+            lloNames.add(loRepo.name);
+        }
+        return lloNames;
+    }
+    //endregion
+}
@@ -0,0 +1,230 @@
+package fr.guddy.androidstarter.tests.persistence;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.j256.ormlite.android.AndroidConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import fr.guddy.androidstarter.persistence.entities.HttpValidatorEntity;
+import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import fr.guddy.androidstarter.persistence.entities.SyncStateEntity;
+import fr.guddy.androidstarter.persistence.migrations.AbstractMigration;
+import fr.guddy.androidstarter.persistence.migrations.Migrations;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestMigrations {
+    /**
+     * The schema shipped with the first version, before any migration.
+     */
+    private static final String CREATE_REPO_V1 = "CREATE TABLE `REPO` (`id` INTEGER , `name` VARCHAR , `description` VARCHAR , `url` VARCHAR , `avatarUrl` VARCHAR , `_id` INTEGER PRIMARY KEY AUTOINCREMENT )";
+    private static final String[] TABLES = {"REPO", "HTTP_VALIDATOR", "SYNC_STATE"};
+
+    //region Fields
+    private SQLiteDatabase mDatabase;
+    //endregion
+
+    //region Test lifecycle
+    @Before
+    public void setUp() throws Exception {
+        mDatabase = SQLiteDatabase.create(null);
+        mDatabase.execSQL(CREATE_REPO_V1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mDatabase.close();
+    }
+    //endregion
+
+    //region Test methods
+    @Frutilla(
+            Given = "A database of the first version storing a repo",
+            When = "Running every migration step, one after the other",
+            Then = "It should keep the repo at each step"
+    )
+    @Test
+    public void test_Migrate_FromFirstVersion_KeepsRepos() {
+        List<AbstractMigration> lloMigrations;
+        Given:
+        {
+            mDatabase.execSQL("INSERT INTO `REPO` (`id`, `name`, `url`) VALUES (1296269, 'Hello-World', 'https://github.com/octocat/Hello-World')");
+            lloMigrations = Migrations.between(1, Migrations.all().get(Migrations.all().size() - 1).getVersion());
+            assertThat(lloMigrations).isNotNull();
+        }
+
+        final List<Long> lloRowCounts = new ArrayList<>();
+        When:
+        {
+            for (final AbstractMigration loMigration : lloMigrations) {
+                loMigration.migrate(mDatabase);
+                lloRowCounts.add(DatabaseUtils.queryNumEntries(mDatabase, "REPO"));
+            }
+        }
+
+        Then:
+        {
+            assertThat(lloRowCounts).containsExactlyElementsIn(Collections.nCopies(lloMigrations.size(), 1L));
+            assertThat(DatabaseUtils.stringForQuery(mDatabase, "SELECT `name` FROM `REPO` WHERE `id` = 1296269", null)).isEqualTo("Hello-World");
+        }
+    }
+
+    @Frutilla(
+            Given = "A database of the first version",
+            When = "Running every migration step",
+            Then = "It should have the schema of a database created from the entities"
+    )
+    @Test
+    public void test_Migrate_FromFirstVersion_MatchesCreatedSchema() throws Exception {
+        SQLiteDatabase loCreatedDatabase;
+        Given:
+        {
+            loCreatedDatabase = SQLiteDatabase.create(null);
+            final ConnectionSource loConnectionSource = new AndroidConnectionSource(loCreatedDatabase);
+            TableUtils.createTable(loConnectionSource, RepoEntity.class);
+            TableUtils.createTable(loConnectionSource, HttpValidatorEntity.class);
+            TableUtils.createTable(loConnectionSource, SyncStateEntity.class);
+        }
+
+        When:
+        {
+            for (final AbstractMigration loMigration : Migrations.all()) {
+                loMigration.migrate(mDatabase);
+            }
+        }
+
+        Then:
+        {
+            try {
+                for (final String lsTable : TABLES) {
+                    assertThat(columnsOf(mDatabase, lsTable)).isEqualTo(columnsOf(loCreatedDatabase, lsTable));
+                    assertThat(indexesOf(mDatabase, lsTable)).isEqualTo(indexesOf(loCreatedDatabase, lsTable));
+                }
+            } finally {
+                loCreatedDatabase.close();
+            }
+        }
+    }
+
+    @Frutilla(
+            Given = "A database of version 4 storing the same GitHub repo twice",
+            When = "Migrating it to version 5",
+            Then = "It should keep only the most recently written row"
+    )
+    @Test
+    public void test_Migrate_ToUniqueRepoId_RemovesDuplicates() {
+        AbstractMigration loMigrationV5;
+        Given:
+        {
+            for (final AbstractMigration loMigration : Migrations.between(1, 4)) {
+                loMigration.migrate(mDatabase);
+            }
+            mDatabase.execSQL("INSERT INTO `REPO` (`_id`, `id`, `name`) VALUES (1, 1296269, 'Hello-World')");
+            mDatabase.execSQL("INSERT INTO `REPO` (`_id`, `id`, `name`, `owner`) VALUES (2, 1296269, 'Hello-World', 'octocat')");
+            loMigrationV5 = Migrations.between(4, 5).get(0);
+        }
+
+        When:
+        {
+            loMigrationV5.migrate(mDatabase);
+        }
+
+        Then:
+        {
+            assertThat(DatabaseUtils.queryNumEntries(mDatabase, "REPO")).isEqualTo(1L);
+            assertThat(DatabaseUtils.longForQuery(mDatabase, "SELECT `_id` FROM `REPO`", null)).isEqualTo(2L);
+        }
+    }
+
+    @Frutilla(
+            Given = "A database of version 5 storing a repo",
+            When = "Migrating it to version 6, then writing repos",
+            Then = "It should find the stored repo and keep the full-text index in sync with the writes"
+    )
+    @Test
+    public void test_Migrate_ToRepoSearch_IndexesRepos() {
+        AbstractMigration loMigrationV6;
+        Given:
+        {
+            for (final AbstractMigration loMigration : Migrations.between(1, 5)) {
+                loMigration.migrate(mDatabase);
+            }
+            mDatabase.execSQL("INSERT INTO `REPO` (`_id`, `id`, `name`, `description`) VALUES (1, 1296269, 'Hello-World', 'My first repository')");
+            loMigrationV6 = Migrations.between(5, 6).get(0);
+        }
+
+        When:
+        {
+            loMigrationV6.migrate(mDatabase);
+        }
+
+        Then:
+        {
+            assertThat(DatabaseUtils.longForQuery(mDatabase, "SELECT `docid` FROM `REPO_FTS` WHERE `REPO_FTS` MATCH 'hel* wor*'", null)).isEqualTo(1L);
+
+            mDatabase.execSQL("INSERT INTO `REPO` (`_id`, `id`, `name`) VALUES (2, 1300192, 'Spoon-Knife')");
+            mDatabase.execSQL("UPDATE `REPO` SET `name` = 'Renamed' WHERE `_id` = 1");
+            assertThat(DatabaseUtils.longForQuery(mDatabase, "SELECT COUNT(*) FROM `REPO_FTS` WHERE `REPO_FTS` MATCH 'hello'", null)).isEqualTo(0L);
+            assertThat(DatabaseUtils.longForQuery(mDatabase, "SELECT `docid` FROM `REPO_FTS` WHERE `REPO_FTS` MATCH 'spoon*'", null)).isEqualTo(2L);
+
+            mDatabase.execSQL("DELETE FROM `REPO` WHERE `_id` = 2");
+            assertThat(DatabaseUtils.longForQuery(mDatabase, "SELECT COUNT(*) FROM `REPO_FTS` WHERE `REPO_FTS` MATCH 'spoon*'", null)).isEqualTo(0L);
+        }
+    }
+    //endregion
+
+    //region Specific job
+    /**
+     * @return name, type, not null and primary key flags of each column, whatever their order
+     */
+    private static Set<String> columnsOf(final SQLiteDatabase poDatabase, final String psTable) {
+        final Set<String> lloColumns = new HashSet<>();
+        final Cursor loCursor = poDatabase.rawQuery("PRAGMA table_info(`" + psTable + "`)", null);
+        try {
+            while (loCursor.moveToNext()) {
+                lloColumns.add(loCursor.getString(loCursor.getColumnIndex("name"))
+                        + " " + loCursor.getString(loCursor.getColumnIndex("type"))
+                        + " " + loCursor.getInt(loCursor.getColumnIndex("notnull"))
+                        + " " + loCursor.getInt(loCursor.getColumnIndex("pk")));
+            }
+        } finally {
+            loCursor.close();
+        }
+        return lloColumns;
+    }
+
+    /**
+     * @return name and unique flag of each index
+     */
+    private static Set<String> indexesOf(final SQLiteDatabase poDatabase, final String psTable) {
+        final Set<String> lloIndexes = new HashSet<>();
+        final Cursor loCursor = poDatabase.rawQuery("PRAGMA index_list(`" + psTable + "`)", null);
+        try {
+            while (loCursor.moveToNext()) {
+                lloIndexes.add(loCursor.getString(loCursor.getColumnIndex("name"))
+                        + " " + loCursor.getInt(loCursor.getColumnIndex("unique")));
+            }
+        } finally {
+            loCursor.close();
+        }
+        return lloIndexes;
+    }
+    //endregion
+}
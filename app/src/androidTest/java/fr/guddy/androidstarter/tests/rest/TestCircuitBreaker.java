@@ -0,0 +1,190 @@
+package fr.guddy.androidstarter.tests.rest;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import fr.guddy.androidstarter.rest.circuit_breaker.CircuitBreaker;
+import fr.guddy.androidstarter.rest.error_handling.RateLimitException;
+import fr.guddy.androidstarter.rest.error_handling.RetrofitException;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestCircuitBreaker {
+    private static final String ENDPOINT = "GET /users/{user}/repos";
+    private static final long INITIAL_OPEN_MS = 200L;
+    private static final long MAX_OPEN_MS = 1000L;
+
+    //region Test methods
+    @Frutilla(
+            Given = "A closed circuit opening after 3 consecutive failures",
+            When = "Reporting 3 IO errors",
+            Then = "The circuit should be open and reject queries"
+    )
+    @Test
+    public void test_OnFailure_WithThresholdReached_OpensCircuit() {
+        CircuitBreaker loCircuitBreaker;
+        Given:
+        {
+            loCircuitBreaker = new CircuitBreaker(ENDPOINT, 3, INITIAL_OPEN_MS, MAX_OPEN_MS);
+        }
+
+        When:
+        {
+            for (int liFailure = 0; liFailure < 3; liFailure++) {
+                assertThat(loCircuitBreaker.tryAcquire()).isTrue();
+                loCircuitBreaker.onFailure(new IOException("reset"));
+            }
+        }
+
+        Then:
+        {
+            assertThat(loCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+            assertThat(loCircuitBreaker.tryAcquire()).isFalse();
+            assertThat(loCircuitBreaker.getRetryAfterMs()).isGreaterThan(0L);
+        }
+    }
+
+    @Frutilla(
+            Given = "A circuit opening after a single failure",
+            When = "Reporting a rate limit, a cancellation-like outcome and a 404 response",
+            Then = "The circuit should stay closed"
+    )
+    @Test
+    public void test_OnFailure_WithFailuresNotFromEndpoint_KeepsCircuitClosed() {
+        CircuitBreaker loCircuitBreaker;
+        Given:
+        {
+            loCircuitBreaker = new CircuitBreaker(ENDPOINT, 1, INITIAL_OPEN_MS, MAX_OPEN_MS);
+        }
+
+        When:
+        {
+            loCircuitBreaker.tryAcquire();
+            loCircuitBreaker.onFailure(new RateLimitException(1000L));
+            loCircuitBreaker.tryAcquire();
+            loCircuitBreaker.onIgnored();
+            loCircuitBreaker.tryAcquire();
+            loCircuitBreaker.onFailure(httpError(404));
+        }
+
+        Then:
+        {
+            assertThat(loCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+            assertThat(loCircuitBreaker.tryAcquire()).isTrue();
+        }
+    }
+
+    @Frutilla(
+            Given = "An open circuit whose open period is over",
+            When = "Two queries ask to run",
+            Then = "Only the first one should be let through, as a probe, the circuit being half-open"
+    )
+    @Test
+    public void test_TryAcquire_AfterOpenPeriod_LetsSingleProbeThrough() throws InterruptedException {
+        CircuitBreaker loCircuitBreaker;
+        Given:
+        {
+            loCircuitBreaker = new CircuitBreaker(ENDPOINT, 1, INITIAL_OPEN_MS, MAX_OPEN_MS);
+            loCircuitBreaker.tryAcquire();
+            loCircuitBreaker.onFailure(httpError(503));
+            Thread.sleep(INITIAL_OPEN_MS + 50L);
+        }
+
+        boolean lbFirstAcquired;
+        boolean lbSecondAcquired;
+        When:
+        {
+            lbFirstAcquired = loCircuitBreaker.tryAcquire();
+            lbSecondAcquired = loCircuitBreaker.tryAcquire();
+        }
+
+        Then:
+        {
+            assertThat(lbFirstAcquired).isTrue();
+            assertThat(lbSecondAcquired).isFalse();
+            assertThat(loCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        }
+    }
+
+    @Frutilla(
+            Given = "A half-open circuit with its probe running",
+            When = "The probe succeeds",
+            Then = "The circuit should be closed"
+    )
+    @Test
+    public void test_OnSuccess_WithProbe_ClosesCircuit() throws InterruptedException {
+        CircuitBreaker loCircuitBreaker;
+        Given:
+        {
+            loCircuitBreaker = new CircuitBreaker(ENDPOINT, 1, INITIAL_OPEN_MS, MAX_OPEN_MS);
+            loCircuitBreaker.tryAcquire();
+            loCircuitBreaker.onFailure(new IOException("reset"));
+            Thread.sleep(INITIAL_OPEN_MS + 50L);
+            loCircuitBreaker.tryAcquire();
+        }
+
+        When:
+        {
+            loCircuitBreaker.onSuccess();
+        }
+
+        Then:
+        {
+            assertThat(loCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+            assertThat(loCircuitBreaker.tryAcquire()).isTrue();
+            assertThat(loCircuitBreaker.getRetryAfterMs()).isEqualTo(0L);
+        }
+    }
+
+    @Frutilla(
+            Given = "A half-open circuit with its probe running",
+            When = "The probe fails",
+            Then = "The circuit should be open again, for twice as long"
+    )
+    @Test
+    public void test_OnFailure_WithProbe_ReopensCircuitForLonger() throws InterruptedException {
+        CircuitBreaker loCircuitBreaker;
+        Given:
+        {
+            loCircuitBreaker = new CircuitBreaker(ENDPOINT, 1, INITIAL_OPEN_MS, MAX_OPEN_MS);
+            loCircuitBreaker.tryAcquire();
+            loCircuitBreaker.onFailure(new IOException("reset"));
+            Thread.sleep(INITIAL_OPEN_MS + 50L);
+            loCircuitBreaker.tryAcquire();
+        }
+
+        When:
+        {
+            loCircuitBreaker.onFailure(httpError(502));
+        }
+
+        Then:
+        {
+            assertThat(loCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+            assertThat(loCircuitBreaker.tryAcquire()).isFalse();
+            assertThat(loCircuitBreaker.getRetryAfterMs()).isGreaterThan(INITIAL_OPEN_MS);
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private static RetrofitException httpError(final int piCode) {
+        final okhttp3.Response loRawResponse = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url("https://api.github.com/users/test/repos").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(piCode)
+                .message("Error")
+                .build();
+        return RetrofitException.httpError(Response.error(ResponseBody.create(null, ""), loRawResponse));
+    }
+    //endregion
+}
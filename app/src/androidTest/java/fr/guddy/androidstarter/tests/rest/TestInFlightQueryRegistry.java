@@ -0,0 +1,180 @@
+package fr.guddy.androidstarter.tests.rest;
+
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+
+import com.birbit.android.jobqueue.JobManager;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish;
+import fr.guddy.androidstarter.rest.GitHubService;
+import fr.guddy.androidstarter.rest.queries.AbstractQuery;
+import fr.guddy.androidstarter.rest.queries.InFlightQueryRegistry;
+import fr.guddy.androidstarter.tests.mock.MockApplication;
+import fr.guddy.androidstarter.tests.mock.MockQuery;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestInFlightQueryRegistry {
+    private static final String KEY = "GET /users/test/repos";
+    private static final String TAG_QUERY = "TestInFlightQueryRegistry";
+    private static final long TIMEOUT_MS = 5000L;
+
+    //region Fields
+    private MockWebServer mMockWebServer;
+    private GitHubService mGitHubService;
+    private JobManager mJobManager;
+    private InFlightQueryRegistry mInFlightQueryRegistry;
+    private CountDownLatch mStartedLatch;
+    //endregion
+
+    //region Test lifecycle
+    @Before
+    public void setUp() throws Exception {
+        mMockWebServer = new MockWebServer();
+        mMockWebServer.start();
+        mGitHubService = new Retrofit.Builder()
+                .baseUrl(mMockWebServer.url("/").toString())
+                .client(new OkHttpClient())
+                .addConverterFactory(JacksonConverterFactory.create())
+                .build()
+                .create(GitHubService.class);
+        mJobManager = MockApplication.sharedMockApplication().getModuleAsync().provideJobManager(InstrumentationRegistry.getTargetContext());
+        mInFlightQueryRegistry = new InFlightQueryRegistry(mJobManager);
+        mStartedLatch = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mJobManager.stopAndWaitUntilConsumersAreFinished();
+        try {
+            mMockWebServer.shutdown();
+        } catch (@NonNull final Exception loException) {
+            loException.printStackTrace();
+        }
+    }
+    //endregion
+
+    //region Test methods
+    @Frutilla(
+            Given = "A running query waiting for a response delayed by 10 seconds",
+            When = "Cancelling the queries with its tag",
+            Then = "Its call should be aborted and it should finish as cancelled, long before the response"
+    )
+    @Test
+    public void test_Cancel_WithRunningQuery_AbortsCallAndFinishesCancelled() throws Exception {
+        MockQuery loQuery;
+        Given:
+        {
+            mMockWebServer.enqueue(new MockResponse().setBody("[]").setBodyDelay(10L, TimeUnit.SECONDS));
+            loQuery = new MockQuery(AbstractQuery.Priority.MEDIUM, KEY, this::listRepos, TAG_QUERY);
+            mInFlightQueryRegistry.enqueue(loQuery);
+            assertThat(mStartedLatch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        }
+
+        boolean lbFinished;
+        When:
+        {
+            mInFlightQueryRegistry.cancel(TAG_QUERY);
+            lbFinished = loQuery.awaitFinish(TIMEOUT_MS);
+        }
+
+        Then:
+        {
+            assertThat(lbFinished).isTrue();
+            assertThat(loQuery.isSuccess()).isFalse();
+            assertThat(loQuery.getErrorType()).isEqualTo(AbstractEventQueryDidFinish.ErrorType.CANCELLED);
+            assertThat(mInFlightQueryRegistry.isInFlight(KEY)).isFalse();
+        }
+    }
+
+    @Frutilla(
+            Given = "A running query two callers are attached to",
+            When = "One of them detaches",
+            Then = "The query should keep running and succeed for the other one"
+    )
+    @Test
+    public void test_Detach_WithAnotherCallerLeft_KeepsQueryRunning() throws Exception {
+        final Object loFirstCaller = new Object();
+        final Object loSecondCaller = new Object();
+        AbstractQuery loQuery;
+        Given:
+        {
+            mMockWebServer.enqueue(new MockResponse().setBody("[]").setBodyDelay(500L, TimeUnit.MILLISECONDS));
+            loQuery = mInFlightQueryRegistry.enqueue(new MockQuery(AbstractQuery.Priority.MEDIUM, KEY, this::listRepos, TAG_QUERY), loFirstCaller);
+            assertThat(mInFlightQueryRegistry.enqueue(new MockQuery(AbstractQuery.Priority.MEDIUM, KEY, this::listRepos, TAG_QUERY), loSecondCaller)).isSameAs(loQuery);
+            assertThat(mStartedLatch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        }
+
+        boolean lbFinished;
+        When:
+        {
+            mInFlightQueryRegistry.detach(loQuery, loFirstCaller);
+            lbFinished = ((MockQuery) loQuery).awaitFinish(TIMEOUT_MS);
+        }
+
+        Then:
+        {
+            assertThat(lbFinished).isTrue();
+            assertThat(((MockQuery) loQuery).isSuccess()).isTrue();
+            assertThat(mMockWebServer.getRequestCount()).isEqualTo(1);
+        }
+    }
+
+    @Frutilla(
+            Given = "A running query two callers are attached to, waiting for a response delayed by 10 seconds",
+            When = "Both of them detach",
+            Then = "The query should be cancelled, and the next identical query should start afresh"
+    )
+    @Test
+    public void test_Detach_WithLastCaller_CancelsQuery() throws Exception {
+        final Object loFirstCaller = new Object();
+        final Object loSecondCaller = new Object();
+        MockQuery loQuery;
+        Given:
+        {
+            mMockWebServer.enqueue(new MockResponse().setBody("[]").setBodyDelay(10L, TimeUnit.SECONDS));
+            loQuery = (MockQuery) mInFlightQueryRegistry.enqueue(new MockQuery(AbstractQuery.Priority.MEDIUM, KEY, this::listRepos, TAG_QUERY), loFirstCaller);
+            mInFlightQueryRegistry.enqueue(new MockQuery(AbstractQuery.Priority.MEDIUM, KEY, this::listRepos, TAG_QUERY), loSecondCaller);
+            assertThat(mStartedLatch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        }
+
+        boolean lbFinished;
+        When:
+        {
+            mInFlightQueryRegistry.detach(loQuery, loFirstCaller);
+            mInFlightQueryRegistry.detach(loQuery, loSecondCaller);
+            lbFinished = loQuery.awaitFinish(TIMEOUT_MS);
+        }
+
+        Then:
+        {
+            assertThat(lbFinished).isTrue();
+            assertThat(loQuery.getErrorType()).isEqualTo(AbstractEventQueryDidFinish.ErrorType.CANCELLED);
+            assertThat(mInFlightQueryRegistry.isInFlight(KEY)).isFalse();
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private void listRepos(@NonNull final MockQuery poQuery) throws Exception {
+        mStartedLatch.countDown();
+        poQuery.registerCall(mGitHubService.listRepos("test", 1, 100, null)).execute();
+    }
+    //endregion
+}
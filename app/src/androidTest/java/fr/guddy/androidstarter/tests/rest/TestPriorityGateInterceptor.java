@@ -0,0 +1,177 @@
+package fr.guddy.androidstarter.tests.rest;
+
+import android.support.annotation.NonNull;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import fr.guddy.androidstarter.rest.interceptors.PriorityGateInterceptor;
+import fr.guddy.androidstarter.rest.queries.AbstractQuery;
+import fr.guddy.androidstarter.tests.mock.MockQuery;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestPriorityGateInterceptor {
+    private static final String PATH_HELD = "/held";
+    private static final long TIMEOUT_MS = 5000L;
+
+    //region Fields
+    private MockWebServer mMockWebServer;
+    private final List<String> mReceivedPaths = Collections.synchronizedList(new ArrayList<>());
+    private final List<Thread> mThreads = new ArrayList<>();
+    private CountDownLatch mReleaseLatch;
+    private PriorityGateInterceptor mPriorityGateInterceptor;
+    private OkHttpClient mOkHttpClient;
+    //endregion
+
+    //region Test lifecycle
+    @Before
+    public void setUp() throws Exception {
+        mReleaseLatch = new CountDownLatch(1);
+        mMockWebServer = new MockWebServer();
+        // requests to PATH_HELD keep their slot until the test releases them
+        mMockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest poRequest) throws InterruptedException {
+                mReceivedPaths.add(poRequest.getPath());
+                if (poRequest.getPath().startsWith(PATH_HELD)) {
+                    mReleaseLatch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                }
+                return new MockResponse().setBody("[]");
+            }
+        });
+        mMockWebServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mReleaseLatch.countDown();
+        for (final Thread loThread : mThreads) {
+            loThread.join(TIMEOUT_MS);
+        }
+        try {
+            mMockWebServer.shutdown();
+        } catch (@NonNull final Exception loException) {
+            loException.printStackTrace();
+        }
+    }
+    //endregion
+
+    //region Test methods
+    @Frutilla(
+            Given = "A gate of 3 slots, two of them used by held medium priority requests",
+            When = "A low priority request, then a high priority one, are executed",
+            Then = "The low priority request should wait, the high priority one should use the reserved slot"
+    )
+    @Test
+    public void test_Intercept_WithSharedSlotsUsed_ReservesLastSlotForHighPriority() throws Exception {
+        Given:
+        {
+            createClient(3);
+            executeInBackground(AbstractQuery.Priority.MEDIUM, PATH_HELD + "/1");
+            executeInBackground(AbstractQuery.Priority.MEDIUM, PATH_HELD + "/2");
+            awaitCount(() -> mPriorityGateInterceptor.getRunningCount(AbstractQuery.Priority.MEDIUM), 2);
+        }
+
+        int liHighPriorityCode;
+        When:
+        {
+            executeInBackground(AbstractQuery.Priority.LOW, "/low");
+            awaitCount(() -> mPriorityGateInterceptor.getWaitingCount(AbstractQuery.Priority.LOW), 1);
+            liHighPriorityCode = new MockQuery(AbstractQuery.Priority.HIGH, null, null).callWithPriority(() -> execute("/high"));
+        }
+
+        Then:
+        {
+            assertThat(liHighPriorityCode).isEqualTo(200);
+            assertThat(mPriorityGateInterceptor.getWaitingCount(AbstractQuery.Priority.LOW)).isEqualTo(1);
+            assertThat(mReceivedPaths).doesNotContain("/low");
+        }
+    }
+
+    @Frutilla(
+            Given = "A gate of 2 slots, the one shared by medium and low priority requests being used",
+            When = "A low priority request, then a medium priority one, wait for it to be freed",
+            Then = "The medium priority request should go first"
+    )
+    @Test
+    public void test_Intercept_WithWaitingRequests_GivesFreedSlotToHighestPriority() throws Exception {
+        Given:
+        {
+            createClient(2);
+            executeInBackground(AbstractQuery.Priority.MEDIUM, PATH_HELD);
+            awaitCount(() -> mPriorityGateInterceptor.getRunningCount(AbstractQuery.Priority.MEDIUM), 1);
+        }
+
+        When:
+        {
+            executeInBackground(AbstractQuery.Priority.LOW, "/low");
+            awaitCount(() -> mPriorityGateInterceptor.getWaitingCount(AbstractQuery.Priority.LOW), 1);
+            executeInBackground(AbstractQuery.Priority.MEDIUM, "/medium");
+            awaitCount(() -> mPriorityGateInterceptor.getWaitingCount(AbstractQuery.Priority.MEDIUM), 1);
+            mReleaseLatch.countDown();
+            for (final Thread loThread : mThreads) {
+                loThread.join(TIMEOUT_MS);
+            }
+        }
+
+        Then:
+        {
+            assertThat(mReceivedPaths).containsExactly(PATH_HELD, "/medium", "/low").inOrder();
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private void createClient(final int piMaxConcurrentRequests) {
+        mPriorityGateInterceptor = new PriorityGateInterceptor(piMaxConcurrentRequests);
+        mOkHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(mPriorityGateInterceptor)
+                .build();
+    }
+
+    private int execute(final String psPath) throws Exception {
+        final okhttp3.Response loResponse = mOkHttpClient.newCall(new Request.Builder().url(mMockWebServer.url(psPath)).build()).execute();
+        loResponse.body().string();
+        return loResponse.code();
+    }
+
+    private void executeInBackground(final AbstractQuery.Priority poPriority, final String psPath) {
+        final Thread loThread = new Thread(() -> {
+            try {
+                new MockQuery(poPriority, null, null).callWithPriority(() -> execute(psPath));
+            } catch (final Exception loException) {
+                loException.printStackTrace();
+            }
+        });
+        mThreads.add(loThread);
+        loThread.start();
+    }
+
+    private static void awaitCount(final Callable<Integer> poCount, final int piExpected) throws Exception {
+        final long llDeadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (poCount.call() != piExpected && System.currentTimeMillis() < llDeadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(poCount.call()).isEqualTo(piExpected);
+    }
+    //endregion
+}
@@ -0,0 +1,151 @@
+package fr.guddy.androidstarter.tests.rest;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+
+import com.squareup.otto.Subscribe;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import fr.guddy.androidstarter.di.modules.ModuleAsync;
+import fr.guddy.androidstarter.di.modules.ModuleBus;
+import fr.guddy.androidstarter.di.modules.ModuleEnvironment;
+import fr.guddy.androidstarter.persistence.DatabaseHelperAndroidStarter;
+import fr.guddy.androidstarter.persistence.dao.DAORepo;
+import fr.guddy.androidstarter.persistence.dao.DAOSyncState;
+import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import fr.guddy.androidstarter.rest.pagination.PageLinks;
+import fr.guddy.androidstarter.rest.queries.QueryGetRepos;
+import fr.guddy.androidstarter.tests.mock.MockApplication;
+import fr.guddy.androidstarter.tests.mock.MockModuleDatabase;
+import fr.guddy.androidstarter.tests.mock.MockModuleRest;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestQueryGetReposDelta {
+    private static final String USER = "delta";
+    private static final String WATERMARK = "2017-03-01T00:00:00Z";
+    private static final long TIMEOUT_MS = 10000L;
+
+    //region Fields
+    private Context mContextTarget;
+    private CountDownLatch mCountDownLatch;
+    private QueryGetRepos.EventQueryGetReposDidFinish mEvent;
+    private ModuleAsync mModuleAsync;
+    private ModuleBus mModuleBus;
+    private MockModuleRest mModuleRest;
+    private MockWebServer mMockWebServer;
+    private DAORepo mDAORepo;
+    private DAOSyncState mDAOSyncState;
+    //endregion
+
+    //region Test lifecycle
+    @Before
+    public void setUp() throws Exception {
+        mContextTarget = InstrumentationRegistry.getTargetContext();
+
+        mModuleAsync = MockApplication.sharedMockApplication().getModuleAsync();
+        mModuleBus = MockApplication.sharedMockApplication().getModuleBus();
+        mModuleRest = MockApplication.sharedMockApplication().getModuleRest();
+        mModuleRest.setUp();
+        final ModuleEnvironment loModuleEnvironment = MockApplication.sharedMockApplication().getModuleEnvironment();
+
+        mModuleBus.provideBusManager().registerSubscriberToBusAnyThread(this);
+
+        mMockWebServer = mModuleRest.getMockWebServer();
+
+        // same database file as the one the query writes to
+        final MockModuleDatabase loModuleDatabase = new MockModuleDatabase();
+        final DatabaseHelperAndroidStarter loDatabaseHelper = loModuleDatabase.provideDatabaseHelperAndroidStarter(mContextTarget, loModuleEnvironment.provideEnvironment());
+        mDAORepo = loModuleDatabase.provideDAORepo(loDatabaseHelper, loModuleEnvironment.provideEnvironment());
+        mDAOSyncState = loModuleDatabase.provideDAOSyncState(loDatabaseHelper);
+        mDAORepo.deleteForOwner(USER);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mModuleBus.provideBusManager().unregisterSubscriberFromBusAnyThread(this);
+        try {
+            mMockWebServer.shutdown();
+        } catch (@NonNull final Exception loException) {
+            loException.printStackTrace();
+        }
+    }
+    //endregion
+
+    //region Test methods
+    @Frutilla(
+            Given = "A watermark stored by a recent full sync, and a first page of 2 out of 2 whose third repo is older than it",
+            When = "Execute a delta sync",
+            Then = "It should store the 2 newer repos, move the watermark to the newest one, and never request the second page"
+    )
+    @Test
+    public void test_ExecuteDelta_WithRepoOlderThanWatermark_StopsPaging() throws Exception {
+        Given:
+        {
+            mDAOSyncState.save(QueryGetRepos.syncKeyFor(USER), WATERMARK, true);
+            final String lsLastPageUrl = mMockWebServer.url("/users/" + USER + "/repos?page=2").toString();
+            mMockWebServer.enqueue(new MockResponse()
+                    .setHeader(PageLinks.HEADER_LINK, "<" + lsLastPageUrl + ">; rel=\"next\", <" + lsLastPageUrl + ">; rel=\"last\"")
+                    .setBody("["
+                            + repoJSON(3, "newest", "2017-03-03T00:00:00Z") + ","
+                            + repoJSON(2, "newer", "2017-03-02T00:00:00Z") + ","
+                            + repoJSON(1, "older", "2017-02-01T00:00:00Z")
+                            + "]"));
+            mMockWebServer.enqueue(new MockResponse().setBody("[" + repoJSON(0, "oldest", "2017-01-01T00:00:00Z") + "]"));
+        }
+
+        When:
+        {
+            mCountDownLatch = new CountDownLatch(1);
+            mModuleAsync.provideJobManager(mContextTarget).addJobInBackground(new QueryGetRepos(USER, false, QueryGetRepos.Mode.DELTA));
+            assertThat(mCountDownLatch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        }
+
+        Then:
+        {
+            assertThat(mEvent.success).isTrue();
+            assertThat(mMockWebServer.getRequestCount()).isEqualTo(1);
+            final List<String> lloNames = new ArrayList<>();
+            for (final RepoEntity loRepo : mDAORepo.queryForOwner(USER)) {
+                lloNames.add(loRepo.name);
+            }
+            assertThat(lloNames).containsExactly("newest", "newer");
+            assertThat(mDAOSyncState.findBySyncKey(QueryGetRepos.syncKeyFor(USER)).watermark).isEqualTo("2017-03-03T00:00:00Z");
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private static String repoJSON(final int piId, final String psName, final String psUpdatedAt) {
+        return "{\"id\":" + piId
+                + ",\"name\":\"" + psName + "\""
+                + ",\"description\":\"" + psName + " repo\""
+                + ",\"url\":\"https://api.github.com/repos/" + USER + "/" + psName + "\""
+                + ",\"updated_at\":\"" + psUpdatedAt + "\""
+                + ",\"owner\":{\"login\":\"" + USER + "\",\"avatar_url\":\"https://avatars.githubusercontent.com/u/1\"}}";
+    }
+    //endregion
+
+    //region Event subscription
+    @Subscribe
+    public void onEventQueryGetReposDidFinish(final QueryGetRepos.EventQueryGetReposDidFinish poEvent) {
+        mEvent = poEvent;
+        mCountDownLatch.countDown();
+    }
+    //endregion
+}
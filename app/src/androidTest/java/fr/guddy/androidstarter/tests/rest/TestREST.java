@@ -21,11 +21,13 @@ import java.util.concurrent.CountDownLatch;
 import fr.guddy.androidstarter.di.modules.ModuleAsync;
 import fr.guddy.androidstarter.di.modules.ModuleBus;
 import fr.guddy.androidstarter.di.modules.ModuleEnvironment;
+import fr.guddy.androidstarter.persistence.dao.DAOHttpValidator;
 import fr.guddy.androidstarter.rest.GitHubService;
 import fr.guddy.androidstarter.rest.dto.DTORepo;
 import fr.guddy.androidstarter.rest.queries.QueryGetRepos;
 import fr.guddy.androidstarter.test.R;
 import fr.guddy.androidstarter.tests.mock.MockApplication;
+import fr.guddy.androidstarter.tests.mock.MockModuleDatabase;
 import fr.guddy.androidstarter.tests.mock.MockModuleRest;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -99,14 +101,24 @@ public class TestREST {
             } catch (@NonNull final Exception loException) {
                 loException.printStackTrace();
             }
-            loGitHubService = mModuleRest.provideGithubService(mModuleRest.provideOkHttpClient(mModuleEnvironment.provideEnvironment(), mContextTarget));
+            final MockModuleDatabase loModuleDatabase = new MockModuleDatabase();
+            final DAOHttpValidator loDaoHttpValidator = loModuleDatabase.provideDAOHttpValidator(loModuleDatabase.provideDatabaseHelperAndroidStarter(mContextTarget, mModuleEnvironment.provideEnvironment()));
+            loGitHubService = mModuleRest.provideGithubService(
+                    mModuleRest.provideOkHttpClient(
+                            mModuleEnvironment.provideEnvironment(),
+                            mContextTarget,
+                            mModuleRest.provideConditionalRequestInterceptor(loDaoHttpValidator),
+                            mModuleRest.provideRateLimitInterceptor(),
+                            mModuleRest.provideCachePolicyInterceptor(mModuleRest.provideMerlinsBeard(mContextTarget), mModuleEnvironment.provideEnvironment()),
+                            mModuleRest.providePriorityGateInterceptor(mModuleEnvironment.provideEnvironment()),
+                            mModuleRest.provideNetworkMetrics()));
         }
 
         Response<List<DTORepo>> loResponseWithOneRepo;
         When:
         {
             loResponseWithOneRepo = loGitHubService
-                    .listRepos("test")
+                    .listRepos("test", 1, QueryGetRepos.MAX_PER_PAGE, null)
                     .execute();
         }
 
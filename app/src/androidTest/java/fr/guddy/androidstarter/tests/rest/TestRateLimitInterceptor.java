@@ -0,0 +1,242 @@
+package fr.guddy.androidstarter.tests.rest;
+
+import android.support.annotation.NonNull;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+
+import fr.guddy.androidstarter.rest.error_handling.RateLimitException;
+import fr.guddy.androidstarter.rest.interceptors.RateLimitInterceptor;
+import fr.guddy.androidstarter.rest.queries.AbstractQuery;
+import fr.guddy.androidstarter.tests.mock.MockQuery;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestRateLimitInterceptor {
+
+    //region Fields
+    private MockWebServer mMockWebServer;
+    private RateLimitInterceptor mRateLimitInterceptor;
+    private Cache mCache;
+    private OkHttpClient mOkHttpClient;
+    //endregion
+
+    //region Test lifecycle
+    @Before
+    public void setUp() throws Exception {
+        mMockWebServer = new MockWebServer();
+        mMockWebServer.start();
+        mRateLimitInterceptor = new RateLimitInterceptor();
+        mCache = new Cache(new File(System.getProperty("java.io.tmpdir"), "TestRateLimitInterceptor"), 1024L * 1024L);
+        mCache.evictAll();
+        mOkHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(mRateLimitInterceptor)
+                .addNetworkInterceptor(mRateLimitInterceptor.getNetworkInterceptor())
+                .cache(mCache)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try {
+            mMockWebServer.shutdown();
+        } catch (@NonNull final Exception loException) {
+            loException.printStackTrace();
+        }
+        mCache.delete();
+    }
+    //endregion
+
+    //region Test methods
+    @Frutilla(
+            Given = "A response telling 59 requests are left out of 60",
+            When = "Executing a request",
+            Then = "The interceptor should know the budget of the window"
+    )
+    @Test
+    public void test_Intercept_WithRateLimitHeaders_LearnsBudget() throws IOException {
+        long llResetAtMs;
+        Given:
+        {
+            llResetAtMs = resetInSeconds(3600L);
+            mMockWebServer.enqueue(rateLimitedResponse(60, 59, llResetAtMs));
+        }
+
+        When:
+        {
+            execute("/repos");
+        }
+
+        Then:
+        {
+            assertThat(mRateLimitInterceptor.getLimit()).isEqualTo(60);
+            assertThat(mRateLimitInterceptor.getRemaining()).isEqualTo(59);
+            assertThat(mRateLimitInterceptor.getResetAtMillis()).isEqualTo(llResetAtMs);
+        }
+    }
+
+    @Frutilla(
+            Given = "A response telling no request is left before the reset, in an hour",
+            When = "Executing another request",
+            Then = "It should fail with a rate limit exception, without reaching the server"
+    )
+    @Test
+    public void test_Intercept_WithExhaustedBudget_ThrowsRateLimitException() throws IOException {
+        Given:
+        {
+            mMockWebServer.enqueue(rateLimitedResponse(60, 0, resetInSeconds(3600L)));
+            mMockWebServer.enqueue(new MockResponse().setBody("[]"));
+            execute("/repos");
+        }
+
+        RateLimitException loException = null;
+        When:
+        {
+            try {
+                execute("/repos?page=2");
+            } catch (final RateLimitException loRateLimitException) {
+                loException = loRateLimitException;
+            }
+        }
+
+        Then:
+        {
+            assertThat(loException).isNotNull();
+            assertThat(loException.retryAfterMs).isGreaterThan(RateLimitInterceptor.MAX_WAIT_MS);
+            assertThat(mMockWebServer.getRequestCount()).isEqualTo(1);
+        }
+    }
+
+    @Frutilla(
+            Given = "A response telling 2 requests are left out of 10, the reserve kept from low priority requests",
+            When = "Executing a low priority request, then a high priority one",
+            Then = "The low priority request should be held back, the high priority one should go"
+    )
+    @Test
+    public void test_Intercept_WithBudgetUnderReserve_HoldsLowPriorityOnly() throws Exception {
+        Given:
+        {
+            mMockWebServer.enqueue(rateLimitedResponse(10, 2, resetInSeconds(3600L)));
+            mMockWebServer.enqueue(new MockResponse().setBody("[]"));
+            execute("/repos");
+        }
+
+        RateLimitException loLowPriorityException = null;
+        Response loHighPriorityResponse;
+        When:
+        {
+            try {
+                new MockQuery(AbstractQuery.Priority.LOW, null, null).callWithPriority(() -> execute("/repos?page=2"));
+            } catch (final RateLimitException loException) {
+                loLowPriorityException = loException;
+            }
+            loHighPriorityResponse = new MockQuery(AbstractQuery.Priority.HIGH, null, null).callWithPriority(() -> execute("/repos?page=3"));
+        }
+
+        Then:
+        {
+            assertThat(loLowPriorityException).isNotNull();
+            assertThat(loHighPriorityResponse.code()).isEqualTo(200);
+            assertThat(mMockWebServer.getRequestCount()).isEqualTo(2);
+            assertThat(mRateLimitInterceptor.getRemaining()).isEqualTo(1);
+        }
+    }
+
+    @Frutilla(
+            Given = "A response telling 100 requests are left for the next 100 seconds",
+            When = "Executing requests until the burst allowance is used",
+            Then = "The next request should wait for the budget to refill, about a second"
+    )
+    @Test
+    public void test_Intercept_WithBurstUsed_PacesRequests() throws IOException {
+        Given:
+        {
+            mMockWebServer.enqueue(rateLimitedResponse(100, 100, resetInSeconds(100L)));
+            for (int liIndex = 0; liIndex < 11; liIndex++) {
+                mMockWebServer.enqueue(new MockResponse().setBody("[]"));
+            }
+            execute("/repos");
+            // the burst allowance of a new window
+            for (int liIndex = 0; liIndex < 10; liIndex++) {
+                execute("/repos?page=" + (liIndex + 2));
+            }
+        }
+
+        long llElapsedMs;
+        When:
+        {
+            final long llStartMs = System.currentTimeMillis();
+            execute("/repos?page=12");
+            llElapsedMs = System.currentTimeMillis() - llStartMs;
+        }
+
+        Then:
+        {
+            assertThat(llElapsedMs).isAtLeast(500L);
+            assertThat(mMockWebServer.getRequestCount()).isEqualTo(12);
+            assertThat(mRateLimitInterceptor.getRemaining()).isEqualTo(89);
+        }
+    }
+
+    @Frutilla(
+            Given = "A cacheable response telling 50 requests are left",
+            When = "Executing the same request again, answered by the cache",
+            Then = "The budget should be unchanged"
+    )
+    @Test
+    public void test_Intercept_WithCachedResponse_RefundsBudget() throws IOException {
+        Given:
+        {
+            mMockWebServer.enqueue(rateLimitedResponse(60, 50, resetInSeconds(3600L)).setHeader("Cache-Control", "max-age=60"));
+            execute("/repos");
+        }
+
+        Response loResponse;
+        When:
+        {
+            loResponse = execute("/repos");
+        }
+
+        Then:
+        {
+            assertThat(loResponse.networkResponse()).isNull();
+            assertThat(mMockWebServer.getRequestCount()).isEqualTo(1);
+            assertThat(mRateLimitInterceptor.getRemaining()).isEqualTo(50);
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private Response execute(final String psPath) throws IOException {
+        final Response loResponse = mOkHttpClient.newCall(new Request.Builder().url(mMockWebServer.url(psPath)).build()).execute();
+        loResponse.body().string();
+        return loResponse;
+    }
+
+    private static MockResponse rateLimitedResponse(final int piLimit, final int piRemaining, final long plResetAtMs) {
+        return new MockResponse()
+                .setBody("[]")
+                .setHeader("X-RateLimit-Limit", piLimit)
+                .setHeader("X-RateLimit-Remaining", piRemaining)
+                .setHeader("X-RateLimit-Reset", plResetAtMs / 1000L);
+    }
+
+    private static long resetInSeconds(final long plSeconds) {
+        return (System.currentTimeMillis() / 1000L + plSeconds) * 1000L;
+    }
+    //endregion
+}
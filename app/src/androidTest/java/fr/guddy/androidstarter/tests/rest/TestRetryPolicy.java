@@ -0,0 +1,199 @@
+package fr.guddy.androidstarter.tests.rest;
+
+import com.birbit.android.jobqueue.RetryConstraint;
+
+import org.frutilla.FrutillaTestRunner;
+import org.frutilla.annotations.Frutilla;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import fr.guddy.androidstarter.rest.error_handling.RetrofitException;
+import fr.guddy.androidstarter.rest.queries.RetryPolicy;
+import okhttp3.Headers;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(FrutillaTestRunner.class)
+public class TestRetryPolicy {
+
+    //region Test methods
+    @Frutilla(
+            Given = "A 403 response with a \"Retry-After: 30\" header",
+            When = "Asking the retry policy for the delay",
+            Then = "It should be retried after 30 seconds, whatever the run count"
+    )
+    @Test
+    public void test_GetDelay_WithRetryAfter_ReturnsServerDelay() {
+        RetryPolicy loPolicy;
+        RetrofitException loException;
+        Given:
+        {
+            loPolicy = new RetryPolicy(3, 500L, 10000L);
+            loException = httpError(403, "Retry-After", "30");
+        }
+
+        long llDelayMs;
+        When:
+        {
+            llDelayMs = loPolicy.getDelayMs(loException, 3);
+        }
+
+        Then:
+        {
+            assertThat(loPolicy.isRetryable(loException)).isTrue();
+            assertThat(llDelayMs).isEqualTo(30000L);
+        }
+    }
+
+    @Frutilla(
+            Given = "A 403 response with an exhausted rate limit, reset in a minute",
+            When = "Asking the retry policy for the delay",
+            Then = "It should be retried once the rate limit is reset"
+    )
+    @Test
+    public void test_GetDelay_WithRateLimitReset_ReturnsDelayUntilReset() {
+        RetryPolicy loPolicy;
+        RetrofitException loException;
+        long llResetAtMs;
+        Given:
+        {
+            loPolicy = new RetryPolicy(3, 500L, 10000L);
+            llResetAtMs = (System.currentTimeMillis() / 1000L + 60L) * 1000L;
+            loException = httpError(403, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", String.valueOf(llResetAtMs / 1000L));
+        }
+
+        long llDelayMs;
+        long llNowMs;
+        When:
+        {
+            llDelayMs = loPolicy.getDelayMs(loException, 1);
+            llNowMs = System.currentTimeMillis();
+        }
+
+        Then:
+        {
+            assertThat(loPolicy.isRetryable(loException)).isTrue();
+            assertThat(llDelayMs).isAtMost(60000L);
+            assertThat(llDelayMs).isAtLeast(llResetAtMs - llNowMs);
+        }
+    }
+
+    @Frutilla(
+            Given = "A 403 response without any rate limit header",
+            When = "Asking the retry policy whether to retry",
+            Then = "It should not be retried"
+    )
+    @Test
+    public void test_GetRetryConstraint_WithForbiddenWithoutRateLimit_Cancels() {
+        RetryPolicy loPolicy;
+        RetrofitException loException;
+        Given:
+        {
+            loPolicy = new RetryPolicy(3, 500L, 10000L);
+            loException = httpError(403, "X-RateLimit-Remaining", "12");
+        }
+
+        RetryConstraint loConstraint;
+        When:
+        {
+            loConstraint = loPolicy.getRetryConstraint(loException, 1);
+        }
+
+        Then:
+        {
+            assertThat(loPolicy.isRetryable(loException)).isFalse();
+            assertThat(loConstraint.shouldRetry()).isFalse();
+        }
+    }
+
+    @Frutilla(
+            Given = "A 503 response and a 429 response without any header",
+            When = "Asking the retry policy whether to retry",
+            Then = "They should both be retried"
+    )
+    @Test
+    public void test_IsRetryable_WithServerErrorOrTooManyRequests_ReturnsTrue() {
+        RetryPolicy loPolicy;
+        Given:
+        {
+            loPolicy = new RetryPolicy(3, 500L, 10000L);
+        }
+
+        boolean lbServerErrorRetryable;
+        boolean lbTooManyRequestsRetryable;
+        When:
+        {
+            lbServerErrorRetryable = loPolicy.isRetryable(httpError(503));
+            lbTooManyRequestsRetryable = loPolicy.isRetryable(httpError(429));
+        }
+
+        Then:
+        {
+            assertThat(lbServerErrorRetryable).isTrue();
+            assertThat(lbTooManyRequestsRetryable).isTrue();
+        }
+    }
+
+    @Frutilla(
+            Given = "A retry policy starting at 1 s and capped at 4 s",
+            When = "Asking for the delay after an IO error, many times for each run count",
+            Then = "It should always be between half of the exponential backoff and the backoff itself"
+    )
+    @Test
+    public void test_GetDelay_WithIOException_StaysWithinJitterBounds() {
+        RetryPolicy loPolicy;
+        IOException loException;
+        Given:
+        {
+            loPolicy = new RetryPolicy(5, 1000L, 4000L);
+            loException = new IOException("reset");
+        }
+
+        final long[] llMinDelaysMs = new long[5];
+        final long[] llMaxDelaysMs = new long[5];
+        When:
+        {
+            for (int liRunCount = 1; liRunCount <= 4; liRunCount++) {
+                llMinDelaysMs[liRunCount] = Long.MAX_VALUE;
+                for (int liTry = 0; liTry < 200; liTry++) {
+                    final long llDelayMs = loPolicy.getDelayMs(loException, liRunCount);
+                    llMinDelaysMs[liRunCount] = Math.min(llMinDelaysMs[liRunCount], llDelayMs);
+                    llMaxDelaysMs[liRunCount] = Math.max(llMaxDelaysMs[liRunCount], llDelayMs);
+                }
+            }
+        }
+
+        Then:
+        {
+            assertThat(llMinDelaysMs[1]).isAtLeast(500L);
+            assertThat(llMaxDelaysMs[1]).isAtMost(1000L);
+            assertThat(llMinDelaysMs[2]).isAtLeast(1000L);
+            assertThat(llMaxDelaysMs[2]).isAtMost(2000L);
+            // capped from the third run on
+            assertThat(llMinDelaysMs[3]).isAtLeast(2000L);
+            assertThat(llMaxDelaysMs[3]).isAtMost(4000L);
+            assertThat(llMinDelaysMs[4]).isAtLeast(2000L);
+            assertThat(llMaxDelaysMs[4]).isAtMost(4000L);
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private static RetrofitException httpError(final int piCode, final String... psHeaders) {
+        final okhttp3.Response loRawResponse = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url("https://api.github.com/users/test/repos").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(piCode)
+                .message("Error")
+                .headers(Headers.of(psHeaders))
+                .build();
+        return RetrofitException.httpError(Response.error(ResponseBody.create(null, ""), loRawResponse));
+    }
+    //endregion
+}
@@ -21,6 +21,8 @@ import fr.guddy.androidstarter.di.modules.ModuleEnvironment;
 import fr.guddy.androidstarter.di.modules.ModuleRest;
 import fr.guddy.androidstarter.di.modules.ModuleTransformer;
 import fr.guddy.androidstarter.mvp.repo_detail.MvpRepoDetail;
+import fr.guddy.androidstarter.rest.queries.PeriodicSyncScheduler;
+import fr.guddy.androidstarter.rest.warmup.ConnectionWarmUp;
 
 @AutoComponent(
         modules = {
@@ -56,6 +58,10 @@ public class ApplicationAndroidStarter extends Application {
     //region Injected fields
     @Inject
     Merlin merlin;
+    @Inject
+    ConnectionWarmUp connectionWarmUp;
+    @Inject
+    PeriodicSyncScheduler periodicSyncScheduler;
     //endregion
 
     //region Overridden methods
@@ -71,6 +77,8 @@ public class ApplicationAndroidStarter extends Application {
 
         mComponentApplication.inject(this);
         merlin.bind();
+        connectionWarmUp.start();
+        periodicSyncScheduler.start();
 
         final StrictMode.ThreadPolicy loStrictModeThreadPolicy = new StrictMode.ThreadPolicy.Builder()
                 .detectAll()
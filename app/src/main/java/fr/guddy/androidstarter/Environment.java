@@ -13,6 +13,71 @@ public enum Environment implements IEnvironment {
         public boolean isDebugDrawerEnabled() {
             return true;
         }
+
+        @Override
+        public int getMaxIdleConnections() {
+            return 8;
+        }
+
+        @Override
+        public int getMaxConcurrentRequests() {
+            return 4;
+        }
+
+        @Override
+        public long getConnectionKeepAliveMs() {
+            return 5 * 60 * 1000L;
+        }
+
+        @Override
+        public boolean isConnectionWarmUpEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getCacheMaxStaleOfflineSeconds() {
+            return 7 * 24 * 60 * 60;
+        }
+
+        @Override
+        public int getStaleWhileRevalidateSeconds() {
+            return 60 * 60;
+        }
+
+        @Override
+        public boolean isNetworkMetricsEnabled() {
+            return true;
+        }
+
+        @Override
+        public long getPeriodicSyncIntervalMs() {
+            return 15L * 60L * 1000L;
+        }
+
+        @Override
+        public long getPeriodicSyncMaxIntervalMs() {
+            return 2L * 60L * 60L * 1000L;
+        }
+
+        @Override
+        public int getQueryResultCacheMaxRows() {
+            return 1000;
+        }
+
+        @Override
+        public boolean isDatabaseWriteAheadLoggingEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getDatabaseCacheSizeKb() {
+            return 4096;
+        }
+
+        @Override
+        public long getDatabaseMmapSizeBytes() {
+            return 32L * 1024L * 1024L;
+        }
     },
     PROD {
         @Override
@@ -24,6 +89,71 @@ public enum Environment implements IEnvironment {
         public boolean isDebugDrawerEnabled() {
             return false;
         }
+
+        @Override
+        public int getMaxIdleConnections() {
+            return 8;
+        }
+
+        @Override
+        public int getMaxConcurrentRequests() {
+            return 4;
+        }
+
+        @Override
+        public long getConnectionKeepAliveMs() {
+            return 5 * 60 * 1000L;
+        }
+
+        @Override
+        public boolean isConnectionWarmUpEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getCacheMaxStaleOfflineSeconds() {
+            return 7 * 24 * 60 * 60;
+        }
+
+        @Override
+        public int getStaleWhileRevalidateSeconds() {
+            return 24 * 60 * 60;
+        }
+
+        @Override
+        public boolean isNetworkMetricsEnabled() {
+            return false;
+        }
+
+        @Override
+        public long getPeriodicSyncIntervalMs() {
+            return 60L * 60L * 1000L;
+        }
+
+        @Override
+        public long getPeriodicSyncMaxIntervalMs() {
+            return 12L * 60L * 60L * 1000L;
+        }
+
+        @Override
+        public int getQueryResultCacheMaxRows() {
+            return 1000;
+        }
+
+        @Override
+        public boolean isDatabaseWriteAheadLoggingEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getDatabaseCacheSizeKb() {
+            return 4096;
+        }
+
+        @Override
+        public long getDatabaseMmapSizeBytes() {
+            return 32L * 1024L * 1024L;
+        }
     },
     TEST {
         @Override
@@ -35,5 +165,70 @@ public enum Environment implements IEnvironment {
         public boolean isDebugDrawerEnabled() {
             return false;
         }
+
+        @Override
+        public int getMaxIdleConnections() {
+            return 5;
+        }
+
+        @Override
+        public int getMaxConcurrentRequests() {
+            return 4;
+        }
+
+        @Override
+        public long getConnectionKeepAliveMs() {
+            return 60 * 1000L;
+        }
+
+        @Override
+        public boolean isConnectionWarmUpEnabled() {
+            return false;
+        }
+
+        @Override
+        public int getCacheMaxStaleOfflineSeconds() {
+            return 0;
+        }
+
+        @Override
+        public int getStaleWhileRevalidateSeconds() {
+            return 0;
+        }
+
+        @Override
+        public boolean isNetworkMetricsEnabled() {
+            return false;
+        }
+
+        @Override
+        public long getPeriodicSyncIntervalMs() {
+            return 0L;
+        }
+
+        @Override
+        public long getPeriodicSyncMaxIntervalMs() {
+            return 0L;
+        }
+
+        @Override
+        public int getQueryResultCacheMaxRows() {
+            return 0;
+        }
+
+        @Override
+        public boolean isDatabaseWriteAheadLoggingEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getDatabaseCacheSizeKb() {
+            return 2048;
+        }
+
+        @Override
+        public long getDatabaseMmapSizeBytes() {
+            return 0L;
+        }
     }
 }
@@ -8,4 +8,69 @@ public interface IEnvironment {
 
     boolean isDebugDrawerEnabled();
 
+    /**
+     * @return the number of idle connections kept in the OkHttp pool
+     */
+    int getMaxIdleConnections();
+
+    /**
+     * @return the number of requests in flight at once, shared out by query priority
+     */
+    int getMaxConcurrentRequests();
+
+    /**
+     * @return how long an idle connection stays in the OkHttp pool
+     */
+    long getConnectionKeepAliveMs();
+
+    /**
+     * @return true to open a connection to the API host at startup, before the first query needs it
+     */
+    boolean isConnectionWarmUpEnabled();
+
+    /**
+     * @return how stale a cached response can be to be served while offline, 0 to disable
+     */
+    int getCacheMaxStaleOfflineSeconds();
+
+    /**
+     * @return how stale a cached response can be to be served while being revalidated in background, 0 to disable
+     */
+    int getStaleWhileRevalidateSeconds();
+
+    /**
+     * @return true to record per-phase durations of every HTTP call
+     */
+    boolean isNetworkMetricsEnabled();
+
+    /**
+     * @return the delay between two background syncs, 0 to disable them
+     */
+    long getPeriodicSyncIntervalMs();
+
+    /**
+     * @return the longest delay between two background syncs, reached by doubling it while nothing changes
+     */
+    long getPeriodicSyncMaxIntervalMs();
+
+    /**
+     * @return the memory budget of the query result cache of the DAOs, as a number of rows, 0 to disable it
+     */
+    int getQueryResultCacheMaxRows();
+
+    /**
+     * @return true to let the database reads run in parallel with a write, through write-ahead logging
+     */
+    boolean isDatabaseWriteAheadLoggingEnabled();
+
+    /**
+     * @return the page cache size of the database connection, in KiB
+     */
+    int getDatabaseCacheSizeKb();
+
+    /**
+     * @return how much of the database file SQLite may memory-map, in bytes, 0 to disable it
+     */
+    long getDatabaseMmapSizeBytes();
+
 }
@@ -5,7 +5,21 @@ import fr.guddy.androidstarter.rest.queries.AbstractQuery;
 public abstract class AbstractEventQueryDidFinish<QueryType extends AbstractQuery> extends AbstractEvent {
     public enum ErrorType {
         UNKNOWN,
-        NETWORK_UNREACHABLE
+        NETWORK_UNREACHABLE,
+        CANCELLED,
+        /**
+         * IO error while talking to the server.
+         */
+        NETWORK,
+        /**
+         * Unsuccessful HTTP response.
+         */
+        HTTP,
+        /**
+         * Rejected without any request, as the endpoint failed repeatedly: {@link #throwable} is a
+         * {@link fr.guddy.androidstarter.rest.error_handling.CircuitOpenException}.
+         */
+        CIRCUIT_OPEN
     }
 
     public final QueryType query;
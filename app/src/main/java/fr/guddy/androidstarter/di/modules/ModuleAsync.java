@@ -5,24 +5,47 @@ import android.support.annotation.NonNull;
 
 import com.birbit.android.jobqueue.JobManager;
 import com.birbit.android.jobqueue.config.Configuration;
+import com.novoda.merlin.Merlin;
 
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import fr.guddy.androidstarter.IEnvironment;
+import fr.guddy.androidstarter.bus.BusManager;
+import fr.guddy.androidstarter.persistence.dao.DAOSyncState;
+import fr.guddy.androidstarter.rest.queries.InFlightQueryRegistry;
+import fr.guddy.androidstarter.rest.queries.PeriodicSyncScheduler;
 
 @Module
 public class ModuleAsync {
+    public static final int MAX_CONSUMER_COUNT = 6;
 
     @Provides
     @Singleton
     public JobManager provideJobManager(@NonNull final Context poContext) {
         final Configuration loConfiguration = new Configuration.Builder(poContext)
                 .minConsumerCount(1) //always keep at least one consumer alive
-                .maxConsumerCount(3) //up to 3 consumers at a time
-                .loadFactor(3) //3 jobs per consumer
+                .maxConsumerCount(MAX_CONSUMER_COUNT) //up to 6 consumers at a time, for batch syncs
+                .loadFactor(1) //a new consumer as soon as a job is waiting
                 .consumerKeepAlive(120) //wait 2 minutes
                 .build();
         return new JobManager(loConfiguration);
     }
+
+    @Provides
+    @Singleton
+    public PeriodicSyncScheduler providePeriodicSyncScheduler(@NonNull final JobManager poJobManager,
+                                                              @NonNull final BusManager poBusManager,
+                                                              @NonNull final Merlin poMerlin,
+                                                              @NonNull final DAOSyncState poDaoSyncState,
+                                                              @NonNull final IEnvironment poEnvironment) {
+        return new PeriodicSyncScheduler(poJobManager, poBusManager, poMerlin, poDaoSyncState, poEnvironment);
+    }
+
+    @Provides
+    @Singleton
+    public InFlightQueryRegistry provideInFlightQueryRegistry(@NonNull final JobManager poJobManager) {
+        return new InFlightQueryRegistry(poJobManager);
+    }
 }
@@ -15,9 +15,14 @@ import javax.inject.Singleton;
 import dagger.Module;
 import dagger.Provides;
 import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.IEnvironment;
 import fr.guddy.androidstarter.persistence.DatabaseHelperAndroidStarter;
+import fr.guddy.androidstarter.persistence.dao.DAOHttpValidator;
 import fr.guddy.androidstarter.persistence.dao.DAORepo;
+import fr.guddy.androidstarter.persistence.dao.DAOSyncState;
+import fr.guddy.androidstarter.persistence.entities.HttpValidatorEntity;
 import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import fr.guddy.androidstarter.persistence.entities.SyncStateEntity;
 
 @Module
 public class ModuleDatabase {
@@ -26,20 +31,61 @@ public class ModuleDatabase {
 
     @Provides
     @Singleton
-    public DatabaseHelperAndroidStarter provideDatabaseHelperAndroidStarter(@NonNull final Context poContext) {
-        return new DatabaseHelperAndroidStarter(poContext);
+    public DatabaseHelperAndroidStarter provideDatabaseHelperAndroidStarter(@NonNull final Context poContext, @NonNull final IEnvironment poEnvironment) {
+        return new DatabaseHelperAndroidStarter(poContext, poEnvironment);
     }
 
     @Provides
     @Singleton
-    public DAORepo provideDAORepo(@NonNull final DatabaseHelperAndroidStarter poDatabaseHelperAndroidStarter) {
+    public DAORepo provideDAORepo(@NonNull final DatabaseHelperAndroidStarter poDatabaseHelperAndroidStarter, @NonNull final IEnvironment poEnvironment) {
         try {
             final ConnectionSource loConnectionSource = poDatabaseHelperAndroidStarter.getConnectionSource();
             final DatabaseTableConfig<RepoEntity> loTableConfig = DatabaseTableConfigUtil.fromClass(loConnectionSource, RepoEntity.class);
+            final DAORepo loDAORepo;
             if (loTableConfig != null) {
-                return new DAORepo(loConnectionSource, loTableConfig);
+                loDAORepo = new DAORepo(loConnectionSource, loTableConfig);
             } else {
-                return new DAORepo(loConnectionSource);
+                loDAORepo = new DAORepo(loConnectionSource);
+            }
+            loDAORepo.setResultCacheBudget(poEnvironment.getQueryResultCacheMaxRows());
+            return loDAORepo;
+        } catch (final SQLException loException) {
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).e(loException, "");
+            }
+        }
+        return null;
+    }
+
+    @Provides
+    @Singleton
+    public DAOHttpValidator provideDAOHttpValidator(@NonNull final DatabaseHelperAndroidStarter poDatabaseHelperAndroidStarter) {
+        try {
+            final ConnectionSource loConnectionSource = poDatabaseHelperAndroidStarter.getConnectionSource();
+            final DatabaseTableConfig<HttpValidatorEntity> loTableConfig = DatabaseTableConfigUtil.fromClass(loConnectionSource, HttpValidatorEntity.class);
+            if (loTableConfig != null) {
+                return new DAOHttpValidator(loConnectionSource, loTableConfig);
+            } else {
+                return new DAOHttpValidator(loConnectionSource);
+            }
+        } catch (final SQLException loException) {
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).e(loException, "");
+            }
+        }
+        return null;
+    }
+
+    @Provides
+    @Singleton
+    public DAOSyncState provideDAOSyncState(@NonNull final DatabaseHelperAndroidStarter poDatabaseHelperAndroidStarter) {
+        try {
+            final ConnectionSource loConnectionSource = poDatabaseHelperAndroidStarter.getConnectionSource();
+            final DatabaseTableConfig<SyncStateEntity> loTableConfig = DatabaseTableConfigUtil.fromClass(loConnectionSource, SyncStateEntity.class);
+            if (loTableConfig != null) {
+                return new DAOSyncState(loConnectionSource, loTableConfig);
+            } else {
+                return new DAOSyncState(loConnectionSource);
             }
         } catch (final SQLException loException) {
             if (BuildConfig.DEBUG && DEBUG) {
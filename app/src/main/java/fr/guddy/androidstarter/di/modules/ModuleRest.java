@@ -7,14 +7,28 @@ import com.novoda.merlin.Merlin;
 import com.novoda.merlin.MerlinsBeard;
 import com.squareup.picasso.Picasso;
 
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Singleton;
 
+import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
 import fr.guddy.androidstarter.IEnvironment;
+import fr.guddy.androidstarter.persistence.dao.DAOHttpValidator;
 import fr.guddy.androidstarter.rest.GitHubService;
+import fr.guddy.androidstarter.rest.circuit_breaker.CircuitBreakerRegistry;
+import fr.guddy.androidstarter.rest.interceptors.CachePolicyInterceptor;
+import fr.guddy.androidstarter.rest.interceptors.ConditionalRequestInterceptor;
+import fr.guddy.androidstarter.rest.interceptors.PriorityGateInterceptor;
+import fr.guddy.androidstarter.rest.interceptors.RateLimitInterceptor;
+import fr.guddy.androidstarter.rest.metrics.NetworkMetrics;
+import fr.guddy.androidstarter.rest.metrics.NetworkMetricsEventListener;
+import fr.guddy.androidstarter.rest.warmup.ConnectionWarmUp;
 import io.palaima.debugdrawer.picasso.PicassoModule;
 import okhttp3.Cache;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -23,30 +37,96 @@ import retrofit2.converter.jackson.JacksonConverterFactory;
 @Module
 public class ModuleRest {
 
-    private final static int CACHE_SIZE_BYTES = 1024 * 1024 * 2;
+    public static final String BASE_URL = "https://api.github.com";
+    private final static long MIN_CACHE_SIZE_BYTES = 1024 * 1024 * 2;
+    private final static long MAX_CACHE_SIZE_BYTES = 1024 * 1024 * 32;
+    /**
+     * Share of the usable space of the cache directory given to the HTTP cache.
+     */
+    private final static double CACHE_SIZE_DISK_RATIO = 0.02d;
 
     @Provides
     @Singleton
-    public OkHttpClient provideOkHttpClient(@NonNull final IEnvironment poEnvironment, @NonNull final Context poContext) {
+    public OkHttpClient provideOkHttpClient(@NonNull final IEnvironment poEnvironment,
+                                           @NonNull final Context poContext,
+                                           @NonNull final ConditionalRequestInterceptor poConditionalRequestInterceptor,
+                                           @NonNull final RateLimitInterceptor poRateLimitInterceptor,
+                                           @NonNull final CachePolicyInterceptor poCachePolicyInterceptor,
+                                           @NonNull final PriorityGateInterceptor poPriorityGateInterceptor,
+                                           @NonNull final NetworkMetrics poNetworkMetrics) {
         final HttpLoggingInterceptor loHttpLoggingInterceptor = new HttpLoggingInterceptor();
         loHttpLoggingInterceptor.setLevel(poEnvironment.getHttpLoggingInterceptorLevel());
-        return new OkHttpClient.Builder()
+        final File loCacheDir = poContext.getCacheDir();
+        final OkHttpClient.Builder loBuilder = new OkHttpClient.Builder()
+                .addInterceptor(poCachePolicyInterceptor)
+                .addInterceptor(poRateLimitInterceptor)
+                .addInterceptor(poPriorityGateInterceptor)
                 .addInterceptor(loHttpLoggingInterceptor)
-                .cache(new Cache(poContext.getCacheDir(), CACHE_SIZE_BYTES))
-                .build();
+                .addNetworkInterceptor(poRateLimitInterceptor.getNetworkInterceptor())
+                .addNetworkInterceptor(poConditionalRequestInterceptor)
+                .cache(new Cache(loCacheDir, computeCacheSizeBytes(loCacheDir)))
+                .connectionPool(new ConnectionPool(poEnvironment.getMaxIdleConnections(), poEnvironment.getConnectionKeepAliveMs(), TimeUnit.MILLISECONDS));
+        if (poEnvironment.isNetworkMetricsEnabled()) {
+            loBuilder.eventListenerFactory(NetworkMetricsEventListener.factory(poNetworkMetrics));
+        }
+        final OkHttpClient loOkHttpClient = loBuilder.build();
+        poCachePolicyInterceptor.bindClient(loOkHttpClient);
+        return loOkHttpClient;
+    }
+
+    @Provides
+    @Singleton
+    public NetworkMetrics provideNetworkMetrics() {
+        return new NetworkMetrics();
+    }
+
+    @Provides
+    @Singleton
+    public CachePolicyInterceptor provideCachePolicyInterceptor(@NonNull final MerlinsBeard poMerlinsBeard, @NonNull final IEnvironment poEnvironment) {
+        return new CachePolicyInterceptor(poMerlinsBeard, poEnvironment);
+    }
+
+    @Provides
+    @Singleton
+    public ConditionalRequestInterceptor provideConditionalRequestInterceptor(@NonNull final DAOHttpValidator poDaoHttpValidator) {
+        return new ConditionalRequestInterceptor(poDaoHttpValidator);
+    }
+
+    @Provides
+    @Singleton
+    public PriorityGateInterceptor providePriorityGateInterceptor(@NonNull final IEnvironment poEnvironment) {
+        return new PriorityGateInterceptor(poEnvironment.getMaxConcurrentRequests());
+    }
+
+    @Provides
+    @Singleton
+    public RateLimitInterceptor provideRateLimitInterceptor() {
+        return new RateLimitInterceptor();
+    }
+
+    @Provides
+    @Singleton
+    public CircuitBreakerRegistry provideCircuitBreakerRegistry() {
+        return new CircuitBreakerRegistry();
     }
 
     @Provides
     @Singleton
     public GitHubService provideGithubService(@NonNull final OkHttpClient poOkHttpClient) {
         final Retrofit loRetrofit = new Retrofit.Builder()
-                .baseUrl("https://api.github.com")
+                .baseUrl(BASE_URL)
                 .client(poOkHttpClient)
                 .addConverterFactory(JacksonConverterFactory.create())
                 .build();
         return loRetrofit.create(GitHubService.class);
     }
 
+    @Provides
+    @Singleton
+    public ConnectionWarmUp provideConnectionWarmUp(@NonNull final IEnvironment poEnvironment, @NonNull final Lazy<OkHttpClient> poOkHttpClient) {
+        return new ConnectionWarmUp(poEnvironment, poOkHttpClient, BASE_URL);
+    }
+
     @Provides
     @Singleton
     public Merlin provideMerlin(@NonNull final Context poContext) {
@@ -78,4 +158,11 @@ public class ModuleRest {
     public PicassoModule providePicassoModule(@NonNull final Picasso poPicasso) {
         return new PicassoModule(poPicasso);
     }
+
+    //region Specific job
+    private static long computeCacheSizeBytes(@NonNull final File poCacheDir) {
+        final long llSize = (long) (poCacheDir.getUsableSpace() * CACHE_SIZE_DISK_RATIO);
+        return Math.max(MIN_CACHE_SIZE_BYTES, Math.min(MAX_CACHE_SIZE_BYTES, llSize));
+    }
+    //endregion
 }
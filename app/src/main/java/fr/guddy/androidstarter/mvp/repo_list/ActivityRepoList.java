@@ -13,6 +13,8 @@ import fr.guddy.androidstarter.ApplicationAndroidStarter;
 import fr.guddy.androidstarter.IEnvironment;
 import fr.guddy.androidstarter.R;
 import fr.guddy.androidstarter.mvp.repo_detail.ActivityRepoDetailIntentBuilder;
+import fr.guddy.androidstarter.rest.metrics.NetworkMetrics;
+import fr.guddy.androidstarter.rest.metrics.NetworkMetricsDebugModule;
 import io.palaima.debugdrawer.DebugDrawer;
 import io.palaima.debugdrawer.commons.BuildModule;
 import io.palaima.debugdrawer.commons.DeviceModule;
@@ -36,6 +38,8 @@ public class ActivityRepoList extends AppCompatActivity
     Picasso mPicasso;
     @Inject
     IEnvironment mEnvironment;
+    @Inject
+    NetworkMetrics mNetworkMetrics;
     //endregion
 
     //region Lifecycle
@@ -53,6 +57,7 @@ public class ActivityRepoList extends AppCompatActivity
                     new FpsModule(Takt.stock(getApplication())),
                     new ScalpelModule(this),
                     new PicassoModule(mPicasso),
+                    new NetworkMetricsDebugModule(mNetworkMetrics),
                     new DeviceModule(this),
                     new BuildModule(this),
                     new NetworkModule(this),
@@ -24,10 +24,12 @@ import butterknife.ButterKnife;
 import butterknife.Unbinder;
 import fr.guddy.androidstarter.BuildConfig;
 import fr.guddy.androidstarter.R;
+import fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish;
 import fr.guddy.androidstarter.persistence.entities.RepoEntity;
 import hugo.weaving.DebugLog;
 import icepick.Icepick;
 import io.nlopez.smartadapters.SmartAdapter;
+import io.nlopez.smartadapters.adapters.RecyclerMultiAdapter;
 import io.nlopez.smartadapters.utils.ViewEventListener;
 import pl.aprilapps.switcher.Switcher;
 
@@ -37,6 +39,10 @@ public class FragmentRepoList
 
     private static final String TAG = FragmentRepoList.class.getSimpleName();
     private static final boolean DEBUG = true;
+    /**
+     * Number of repos left below the last visible one when the next page is read.
+     */
+    private static final int LOAD_MORE_THRESHOLD = 10;
 
     //region Mock callback constant
     /**
@@ -83,6 +89,10 @@ public class FragmentRepoList
                     poView.setRefreshing(false);
 
     private Switcher mSwitcher;
+    /**
+     * Kept while the view lives, so that adding a page keeps the scroll position.
+     */
+    private RecyclerMultiAdapter mAdapter;
 
     private Callbacks mCallbacks = sDummyCallbacks;
     private Unbinder mUnbinder;
@@ -134,7 +144,16 @@ public class FragmentRepoList
     @Override
     public void onActivityCreated(final Bundle poSavedInstanceState) {
         super.onActivityCreated(poSavedInstanceState);
-        mRecyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
+        final LinearLayoutManager loLayoutManager = new LinearLayoutManager(getActivity());
+        mRecyclerView.setLayoutManager(loLayoutManager);
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(final RecyclerView poRecyclerView, final int piDx, final int piDy) {
+                if (piDy > 0 && loLayoutManager.findLastVisibleItemPosition() >= loLayoutManager.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    getPresenter().loadMoreRepos();
+                }
+            }
+        });
     }
 
     @Override
@@ -147,6 +166,7 @@ public class FragmentRepoList
     public void onDestroyView() {
         super.onDestroyView();
 
+        mAdapter = null;
         mUnbinder.unbind();
     }
 
@@ -185,6 +205,18 @@ public class FragmentRepoList
         ButterKnife.apply(mSwipeRefreshLayouts, STOP_REFRESHING);
         mSwitcher.showEmptyView();
     }
+
+    @DebugLog
+    @Override
+    public void showError(final Throwable poThrowable, final AbstractEventQueryDidFinish.ErrorType poErrorType, final boolean pbPullToRefresh) {
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).e(poThrowable, "%s", poErrorType);
+        }
+
+        mTextViewError.setText(getErrorMessage(poErrorType));
+        ButterKnife.apply(mSwipeRefreshLayouts, STOP_REFRESHING);
+        mSwitcher.showErrorView();
+    }
     //endregion
 
     //region MvpLceView
@@ -206,12 +238,7 @@ public class FragmentRepoList
     @DebugLog
     @Override
     public void showError(final Throwable poThrowable, final boolean pbPullToRefresh) {
-        if (BuildConfig.DEBUG && DEBUG) {
-            Logger.t(TAG).e(poThrowable, "");
-        }
-
-        ButterKnife.apply(mSwipeRefreshLayouts, STOP_REFRESHING);
-        mSwitcher.showErrorView();
+        showError(poThrowable, AbstractEventQueryDidFinish.ErrorType.UNKNOWN, pbPullToRefresh);
     }
 
     @DebugLog
@@ -219,10 +246,14 @@ public class FragmentRepoList
     public void setData(final RepoListMvp.Model poData) {
         ((RepoListMvp.ViewState) viewState).data = poData;
 
-        SmartAdapter.items(poData.repos)
-                .map(RepoEntity.class, CellRepo.class)
-                .listener(FragmentRepoList.this)
-                .into(mRecyclerView);
+        if (mAdapter == null) {
+            mAdapter = SmartAdapter.items(poData.repos)
+                    .map(RepoEntity.class, CellRepo.class)
+                    .listener(FragmentRepoList.this)
+                    .into(mRecyclerView);
+        } else {
+            mAdapter.setItems(poData.repos);
+        }
     }
 
     @DebugLog
@@ -254,6 +285,21 @@ public class FragmentRepoList
     }
     //endregion
 
+    //region Specific job
+    private static int getErrorMessage(final AbstractEventQueryDidFinish.ErrorType poErrorType) {
+        if (poErrorType == null) {
+            return R.string.error_repo;
+        }
+        switch (poErrorType) {
+            case CIRCUIT_OPEN:
+                // GitHub is failing, not this device: the user only has to wait
+                return R.string.error_repo_unavailable;
+            default:
+                return R.string.error_repo;
+        }
+    }
+    //endregion
+
     //region Callback definition
 
     /**
@@ -3,12 +3,14 @@ package fr.guddy.androidstarter.mvp.repo_list;
 import android.content.Context;
 import android.support.annotation.NonNull;
 
-import com.birbit.android.jobqueue.JobManager;
 import com.hannesdorfmann.mosby.mvp.MvpBasePresenter;
 import com.orhanobut.logger.Logger;
 import com.squareup.otto.Subscribe;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -16,20 +18,31 @@ import autodagger.AutoInjector;
 import fr.guddy.androidstarter.ApplicationAndroidStarter;
 import fr.guddy.androidstarter.BuildConfig;
 import fr.guddy.androidstarter.bus.BusManager;
+import fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish;
 import fr.guddy.androidstarter.persistence.dao.DAORepo;
 import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import fr.guddy.androidstarter.rest.queries.AbstractQuery;
+import fr.guddy.androidstarter.rest.queries.InFlightQueryRegistry;
+import fr.guddy.androidstarter.rest.queries.PeriodicSyncScheduler;
 import fr.guddy.androidstarter.rest.queries.QueryGetRepos;
 import hugo.weaving.DebugLog;
 import rx.Observable;
 import rx.Subscription;
 import rx.android.schedulers.AndroidSchedulers;
 import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
 
 @AutoInjector(ApplicationAndroidStarter.class)
 public class PresenterRepoList extends MvpBasePresenter<RepoListMvp.View> implements RepoListMvp.Presenter {
     private static final String TAG = PresenterRepoList.class.getSimpleName();
     private static final boolean DEBUG = true;
 
+    private static final String USER = "RoRoche";
+    /**
+     * Repos read per page: the list reads one more page when scrolled near its end.
+     */
+    private static final int PAGE_SIZE = 50;
+
     //region Injected fields
     @Inject
     Context context;
@@ -38,11 +51,37 @@ public class PresenterRepoList extends MvpBasePresenter<RepoListMvp.View> implem
     @Inject
     DAORepo daoRepo;
     @Inject
-    JobManager jobManager;
+    InFlightQueryRegistry inFlightQueryRegistry;
+    @Inject
+    PeriodicSyncScheduler periodicSyncScheduler;
     //endregion
 
     //region Fields
     private Subscription mSubscriptionGetRepos;
+    /**
+     * Number of repos the list has been scrolled to, only these rows are read.
+     */
+    private int mLimit = PAGE_SIZE;
+    /**
+     * Emits {@link #mLimit} whenever it grows, while the repos are observed.
+     */
+    private BehaviorSubject<Integer> mLimitSubject;
+    /**
+     * Queries this presenter is attached to and which have not finished yet.
+     */
+    private final Set<AbstractQuery> mQueries = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * Last repos read by the live query, null until the first read.
+     */
+    private List<RepoEntity> mRepos;
+    /**
+     * True while a sync started by this presenter runs.
+     */
+    private boolean mSyncing;
+    /**
+     * True once repos have been rendered, so that a failed refresh keeps them on screen.
+     */
+    private boolean mHasContent;
     //endregion
 
     //region Constructor
@@ -55,6 +94,7 @@ public class PresenterRepoList extends MvpBasePresenter<RepoListMvp.View> implem
     @Override
     public void attachView(final RepoListMvp.View poView) {
         super.attachView(poView);
+        periodicSyncScheduler.schedule(USER);
 
         try {
             busManager.registerSubscriberToBusMainThread(this);
@@ -71,6 +111,11 @@ public class PresenterRepoList extends MvpBasePresenter<RepoListMvp.View> implem
 
         if (!pbRetainInstance) {
             unsubscribe();
+            // the view is gone for good: the queries nobody else waits for are cancelled
+            for (final AbstractQuery loQuery : mQueries) {
+                inFlightQueryRegistry.detach(loQuery, this);
+            }
+            mQueries.clear();
         }
 
         try {
@@ -87,60 +132,90 @@ public class PresenterRepoList extends MvpBasePresenter<RepoListMvp.View> implem
     @Override
     public void loadRepos(final boolean pbPullToRefresh) {
         startQueryGetRepos(pbPullToRefresh);
+        if (mSubscriptionGetRepos == null) {
+            // offline-first: render what the last sync stored while the query refreshes it
+            observeRepos();
+        }
     }
-    //endregion
-
-    //region Reactive job
-    private void getRepos(final boolean pbPullToRefresh) {
-        unsubscribe();
 
-        final RepoListMvp.View loView = getView();
-        if (loView == null) {
-            return;
+    @Override
+    public void loadMoreRepos() {
+        // fewer repos than the limit means the last page has been read, and a read still running has not grown them yet
+        if (mLimitSubject != null && mRepos != null && mRepos.size() >= mLimit) {
+            mLimit += PAGE_SIZE;
+            mLimitSubject.onNext(mLimit);
         }
+    }
+    //endregion
 
-        mSubscriptionGetRepos = rxGetRepos()
-                .subscribeOn(Schedulers.newThread())
+    //region Reactive job
+    /**
+     * Subscribes once: the repos the list has been scrolled to are read again whenever the REPO table changes, whoever writes it,
+     * and when the list is scrolled further.
+     */
+    private void observeRepos() {
+        mLimitSubject = BehaviorSubject.create(mLimit);
+        mSubscriptionGetRepos = mLimitSubject
+                .switchMap((final Integer piLimit) -> daoRepo.rxLiveQuery(rxGetRepos(piLimit)))
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
                         // onNext
                         (final List<RepoEntity> ploRepos) -> {
-                            if (isViewAttached()) {
-                                loView.setData(new RepoListMvp.Model(ploRepos));
-                                if (ploRepos == null || ploRepos.isEmpty()) {
-                                    loView.showEmpty();
-                                } else {
-                                    loView.showContent();
-                                }
+                            mRepos = ploRepos;
+                            if (ploRepos.isEmpty() && mSyncing) {
+                                // nothing stored yet, the loading state stays until the sync ends
+                                return;
                             }
+                            render(ploRepos);
                         },
                         // onError
                         (final Throwable poException) -> {
-                            if (isViewAttached()) {
-                                loView.showError(poException, pbPullToRefresh);
+                            final RepoListMvp.View loView = getView();
+                            if (isViewAttached() && loView != null) {
+                                loView.showError(poException, false);
                             }
                             unsubscribe();
-                        },
-                        // onCompleted
-                        this::unsubscribe
+                        }
                 );
     }
+
+    private void render(@NonNull final List<RepoEntity> ploRepos) {
+        final boolean lbEmpty = ploRepos.isEmpty();
+        mHasContent = !lbEmpty;
+        final RepoListMvp.View loView = getView();
+        if (isViewAttached() && loView != null) {
+            loView.setData(new RepoListMvp.Model(ploRepos));
+            if (lbEmpty) {
+                loView.showEmpty();
+            } else {
+                loView.showContent();
+            }
+        }
+    }
     //endregion
 
     //region Database job
-    private Observable<List<RepoEntity>> rxGetRepos() {
-        return daoRepo.rxQueryForAll();
+    /**
+     * Read through the query result cache: a view attached again while the table is unchanged reads no row.
+     * The whole table is never held: only the first {@code piLimit} repos are read.
+     */
+    private Observable<List<RepoEntity>> rxGetRepos(final int piLimit) {
+        // subscribed on the main thread when the list is scrolled further
+        return daoRepo.rxQueryForOwner(USER, piLimit)
+                .subscribeOn(Schedulers.io());
     }
     //endregion
 
     //region Network job
     private void startQueryGetRepos(final boolean pbPullToRefresh) {
+        mSyncing = true;
         final RepoListMvp.View loView = getView();
         if (isViewAttached() && loView != null) {
             loView.showLoading(pbPullToRefresh);
         }
 
-        jobManager.addJobInBackground(new QueryGetRepos("RoRoche", pbPullToRefresh));
+        // a load (or a refresh) while the previous one is in flight attaches to it instead of starting a second sync
+        mQueries.add(inFlightQueryRegistry.enqueue(new QueryGetRepos(USER, pbPullToRefresh, QueryGetRepos.Mode.DELTA), this));
     }
     //endregion
 
@@ -148,12 +223,26 @@ public class PresenterRepoList extends MvpBasePresenter<RepoListMvp.View> implem
     @DebugLog
     @Subscribe
     public void onEventQueryGetRepos(@NonNull final QueryGetRepos.EventQueryGetReposDidFinish poEvent) {
+        if (!mQueries.remove(poEvent.query) || poEvent.errorType == AbstractEventQueryDidFinish.ErrorType.CANCELLED) {
+            // not waited for by this presenter, such as a background sync whose writes reach the screen through the live query,
+            // or cancelled
+            return;
+        }
+        mSyncing = !mQueries.isEmpty();
         if (poEvent.success) {
-            getRepos(poEvent.pullToRefresh);
+            // ends the loading state: the repos it wrote, if any, are read again by the live query
+            if (mRepos != null) {
+                render(mRepos);
+            }
         } else {
             final RepoListMvp.View loView = getView();
             if (isViewAttached() && loView != null) {
-                loView.showError(poEvent.throwable, poEvent.pullToRefresh);
+                if (mHasContent) {
+                    // the stored repos remain valid, only the refresh failed
+                    loView.showContent();
+                } else {
+                    loView.showError(poEvent.throwable, poEvent.errorType, poEvent.pullToRefresh);
+                }
             }
         }
     }
@@ -166,6 +255,7 @@ public class PresenterRepoList extends MvpBasePresenter<RepoListMvp.View> implem
         }
 
         mSubscriptionGetRepos = null;
+        mLimitSubject = null;
     }
     //endregion
 }
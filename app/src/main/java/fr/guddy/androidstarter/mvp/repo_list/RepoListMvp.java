@@ -10,6 +10,7 @@ import com.hannesdorfmann.mosby.mvp.viewstate.RestorableViewState;
 import java.io.Serializable;
 import java.util.List;
 
+import fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish;
 import fr.guddy.androidstarter.persistence.entities.RepoEntity;
 import icepick.Icepick;
 import icepick.Icicle;
@@ -30,12 +31,24 @@ public interface RepoListMvp {
     //region View
     interface View extends MvpLceView<Model> {
         void showEmpty();
+
+        /**
+         * Same as {@link #showError(Throwable, boolean)}, for a failed query.
+         *
+         * @param poErrorType why the query failed, picks the message shown
+         */
+        void showError(final Throwable poThrowable, final AbstractEventQueryDidFinish.ErrorType poErrorType, final boolean pbPullToRefresh);
     }
     //endregion
 
     //region Presenter
     interface Presenter extends MvpPresenter<View> {
         void loadRepos(final boolean pbPullToRefresh);
+
+        /**
+         * Reads one more page of the stored repos, if any, when the list is scrolled near its end.
+         */
+        void loadMoreRepos();
     }
     //endregion
 
@@ -1,6 +1,7 @@
 package fr.guddy.androidstarter.persistence;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.support.annotation.NonNull;
 
@@ -10,12 +11,19 @@ import com.j256.ormlite.table.TableUtils;
 import com.orhanobut.logger.Logger;
 
 import java.sql.SQLException;
+import java.util.List;
 
 import javax.inject.Singleton;
 
 import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.IEnvironment;
 import fr.guddy.androidstarter.R;
+import fr.guddy.androidstarter.persistence.entities.HttpValidatorEntity;
 import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import fr.guddy.androidstarter.persistence.entities.SyncStateEntity;
+import fr.guddy.androidstarter.persistence.migrations.AbstractMigration;
+import fr.guddy.androidstarter.persistence.migrations.MigrationV6RepoSearch;
+import fr.guddy.androidstarter.persistence.migrations.Migrations;
 import hugo.weaving.DebugLog;
 
 @Singleton
@@ -24,27 +32,61 @@ public class DatabaseHelperAndroidStarter extends OrmLiteSqliteOpenHelper {
     private static final boolean DEBUG = true;
 
     private static final String DATABASE_NAME = "android_starter.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 6;
+
+    //region Fields
+    private final IEnvironment mEnvironment;
+    //endregion
 
     //region Constructor
-    public DatabaseHelperAndroidStarter(@NonNull final Context poContext) {
-        super(poContext, DATABASE_NAME, null, DATABASE_VERSION, R.raw.ormlite_config);
+    public DatabaseHelperAndroidStarter(@NonNull final Context poContext, @NonNull final IEnvironment poEnvironment) {
+        this(poContext, DATABASE_NAME, null, DATABASE_VERSION, poEnvironment);
     }
 
     protected DatabaseHelperAndroidStarter(@NonNull final Context poContext,
                                            @NonNull final String psDatabaseName,
                                            final SQLiteDatabase.CursorFactory poFactory,
-                                           final int piDatabaseVersion) {
+                                           final int piDatabaseVersion,
+                                           @NonNull final IEnvironment poEnvironment) {
         super(poContext, psDatabaseName, poFactory, piDatabaseVersion, R.raw.ormlite_config);
+        mEnvironment = poEnvironment;
     }
     //endregion
 
     //region Methods to override
+    /**
+     * With write-ahead logging, Android opens extra read-only connections: a read runs on one of them against the last
+     * committed state, in parallel with the transaction of a sync, instead of waiting for it.
+     * The pragmas apply to the primary connection, the one every write goes through.
+     */
+    @Override
+    public void onConfigure(@NonNull final SQLiteDatabase poDatabase) {
+        super.onConfigure(poDatabase);
+        if (mEnvironment.isDatabaseWriteAheadLoggingEnabled()) {
+            poDatabase.enableWriteAheadLogging();
+            // WAL stays consistent without a sync per commit, a power loss may only roll back the last transactions
+            poDatabase.execSQL("PRAGMA synchronous = NORMAL");
+        }
+        // negative: a size in KiB rather than in pages
+        poDatabase.execSQL("PRAGMA cache_size = -" + mEnvironment.getDatabaseCacheSizeKb());
+        // returns the applied size, or nothing where mmap is compiled out, so it is run as a query
+        final Cursor loCursor = poDatabase.rawQuery("PRAGMA mmap_size = " + mEnvironment.getDatabaseMmapSizeBytes(), null);
+        try {
+            loCursor.moveToFirst();
+        } finally {
+            loCursor.close();
+        }
+    }
+
     @DebugLog
     @Override
     public void onCreate(@NonNull final SQLiteDatabase poDatabase, @NonNull final ConnectionSource poConnectionSource) {
         try {
             TableUtils.createTable(poConnectionSource, RepoEntity.class);
+            TableUtils.createTable(poConnectionSource, HttpValidatorEntity.class);
+            TableUtils.createTable(poConnectionSource, SyncStateEntity.class);
+            // ORMLite cannot describe the full-text index, its migration step is its only definition
+            new MigrationV6RepoSearch().migrate(poDatabase);
         } catch (final SQLException loException) {
             if (BuildConfig.DEBUG && DEBUG) {
                 Logger.t(TAG).e(loException, "");
@@ -55,8 +97,35 @@ public class DatabaseHelperAndroidStarter extends OrmLiteSqliteOpenHelper {
     @DebugLog
     @Override
     public void onUpgrade(@NonNull final SQLiteDatabase poDatabase, @NonNull final ConnectionSource poConnectionSource, final int piOldVersion, final int piNewVersion) {
+        final List<AbstractMigration> lloMigrations = Migrations.between(piOldVersion, piNewVersion);
+        if (lloMigrations != null) {
+            try {
+                // the stored rows are kept, so the first launch after an update does not refetch everything
+                for (final AbstractMigration loMigration : lloMigrations) {
+                    loMigration.migrate(poDatabase);
+                }
+                return;
+            } catch (final android.database.SQLException loException) {
+                if (BuildConfig.DEBUG && DEBUG) {
+                    Logger.t(TAG).e(loException, "Migration from version %d failed", piOldVersion);
+                }
+                // caught, so the upgrade transaction is still committed: the tables the steps left half migrated are dropped below
+            }
+        }
+        recreateTables(poDatabase, poConnectionSource);
+    }
+    //endregion
+
+    //region Specific job
+    /**
+     * Last resort, when the history misses a step or a step failed: the cache is lost and synced again.
+     */
+    private void recreateTables(@NonNull final SQLiteDatabase poDatabase, @NonNull final ConnectionSource poConnectionSource) {
         try {
+            poDatabase.execSQL("DROP TABLE IF EXISTS `" + RepoEntity.TABLE_SEARCH + "`");
             TableUtils.dropTable(poConnectionSource, RepoEntity.class, true);
+            TableUtils.dropTable(poConnectionSource, HttpValidatorEntity.class, true);
+            TableUtils.dropTable(poConnectionSource, SyncStateEntity.class, true);
         } catch (final SQLException loException) {
             if (BuildConfig.DEBUG && DEBUG) {
                 Logger.t(TAG).e(loException, "");
@@ -0,0 +1,68 @@
+package fr.guddy.androidstarter.persistence.dao;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.guddy.androidstarter.persistence.entities.AbstractOrmLiteEntity;
+
+/**
+ * Buffers entities and writes them by fixed-size batches, each batch through the given {@link Sink}.
+ * <p>
+ * Memory usage only depends on the batch size, not on the number of written entities.
+ * Not thread-safe: a writer is meant to be fed by a single producer.
+ * </p>
+ */
+public class BatchWriter<DataType extends AbstractOrmLiteEntity> {
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Writes a full batch, in a single transaction.
+     */
+    public interface Sink<DataType> {
+        /**
+         * @return the number of written rows
+         */
+        int write(@NonNull final List<DataType> ploBatch) throws Exception;
+    }
+
+    //region Fields
+    private final Sink<DataType> mSink;
+    private final int miBatchSize;
+    private final List<DataType> mPending;
+    private int miWrittenCount;
+    //endregion
+
+    //region Constructors
+    public BatchWriter(final int piBatchSize, @NonNull final Sink<DataType> poSink) {
+        if (piBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        mSink = poSink;
+        miBatchSize = piBatchSize;
+        mPending = new ArrayList<>(piBatchSize);
+    }
+    //endregion
+
+    //region Visible API
+    public void add(@NonNull final DataType poEntity) throws Exception {
+        mPending.add(poEntity);
+        if (mPending.size() >= miBatchSize) {
+            flush();
+        }
+    }
+
+    public void flush() throws Exception {
+        if (mPending.isEmpty()) {
+            return;
+        }
+        miWrittenCount += mSink.write(mPending);
+        mPending.clear();
+    }
+
+    public int getWrittenCount() {
+        return miWrittenCount;
+    }
+    //endregion
+}
@@ -0,0 +1,29 @@
+package fr.guddy.androidstarter.persistence.dao;
+
+/**
+ * Row counts of a bulk write, see {@link IRxDao#upsertAll(java.util.Collection)} and {@link IRxDao#replaceAll(java.util.Collection)}.
+ */
+public class BulkWriteResult {
+    public final int created;
+    public final int updated;
+    public final int deleted;
+
+    public BulkWriteResult(final int piCreated, final int piUpdated, final int piDeleted) {
+        created = piCreated;
+        updated = piUpdated;
+        deleted = piDeleted;
+    }
+
+    public int getWrittenCount() {
+        return created + updated;
+    }
+
+    public BulkWriteResult plus(final BulkWriteResult poOther) {
+        return new BulkWriteResult(created + poOther.created, updated + poOther.updated, deleted + poOther.deleted);
+    }
+
+    @Override
+    public String toString() {
+        return "created = " + created + ", updated = " + updated + ", deleted = " + deleted;
+    }
+}
@@ -0,0 +1,49 @@
+package fr.guddy.androidstarter.persistence.dao;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
+
+import java.sql.SQLException;
+
+import fr.guddy.androidstarter.persistence.entities.HttpValidatorEntity;
+
+public class DAOHttpValidator extends AbstractBaseDAOImpl<HttpValidatorEntity> {
+    //region Constructors matching super
+    public DAOHttpValidator(final ConnectionSource poConnectionSource) throws SQLException {
+        this(poConnectionSource, HttpValidatorEntity.class);
+    }
+
+    public DAOHttpValidator(final ConnectionSource poConnectionSource, final Class<HttpValidatorEntity> poDataClass) throws SQLException {
+        super(poConnectionSource, poDataClass);
+    }
+
+    public DAOHttpValidator(final ConnectionSource poConnectionSource, final DatabaseTableConfig<HttpValidatorEntity> poTableConfig) throws SQLException {
+        super(poConnectionSource, poTableConfig);
+    }
+    //endregion
+
+    //region Visible API
+    @Nullable
+    public HttpValidatorEntity findByRequestKey(@NonNull final String psRequestKey) throws SQLException {
+        return queryBuilder()
+                .where()
+                .eq(HttpValidatorEntity.COLUMN_REQUEST_KEY, psRequestKey)
+                .queryForFirst();
+    }
+
+    public void save(@NonNull final String psRequestKey, @Nullable final String psETag, @Nullable final String psLastModified) throws SQLException {
+        HttpValidatorEntity loValidator = findByRequestKey(psRequestKey);
+        if (loValidator == null) {
+            loValidator = new HttpValidatorEntity();
+            loValidator.requestKey = psRequestKey;
+        }
+        loValidator.etag = psETag;
+        loValidator.lastModified = psLastModified;
+        loValidator.updatedAt = System.currentTimeMillis();
+        createOrUpdate(loValidator);
+    }
+    //endregion
+}
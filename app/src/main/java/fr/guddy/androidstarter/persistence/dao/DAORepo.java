@@ -1,13 +1,55 @@
 package fr.guddy.androidstarter.persistence.dao;
 
+import android.provider.BaseColumns;
+import android.support.annotation.NonNull;
+
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.stmt.DeleteBuilder;
+import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.QueryBuilder;
 import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.table.DatabaseTableConfig;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import rx.Observable;
+import rx.functions.Func0;
 
 public class DAORepo extends AbstractBaseDAOImpl<RepoEntity> {
+    private static final int MAX_IDS_PER_STATEMENT = 500;
+    private static final int ENTITY_CACHE_SIZE = 500;
+    /**
+     * Rank weight of each column of {@link RepoEntity#TABLE_SEARCH}: name, description.
+     */
+    private static final double[] SEARCH_COLUMN_WEIGHTS = {2d, 1d};
+    private static final String SEARCH_COLUMN_NAME = "name";
+    /**
+     * Matches read and ranked per search pass, so that a short prefix matching many repos stays fast.
+     * Ranking is therefore approximate past this count, see {@link #search(String, int)}.
+     */
+    public static final int SEARCH_CANDIDATE_LIMIT = 200;
+
+    //region Fields
+    /**
+     * Filled by the owner queries, so that opening a listed repo reads no row, and invalidated by every write.
+     */
+    private final EntityCache<RepoEntity> mEntityCache = new EntityCache<>(ENTITY_CACHE_SIZE);
+    //endregion
+
     //region Constructors matching super
     public DAORepo(final ConnectionSource poConnectionSource) throws SQLException {
         this(poConnectionSource, RepoEntity.class);
@@ -15,10 +57,368 @@ public class DAORepo extends AbstractBaseDAOImpl<RepoEntity> {
 
     public DAORepo(final ConnectionSource poConnectionSource, final Class<RepoEntity> poDataClass) throws SQLException {
         super(poConnectionSource, poDataClass);
+        invalidateEntityCacheOnChange();
     }
 
     public DAORepo(final ConnectionSource poConnectionSource, final DatabaseTableConfig<RepoEntity> poTableConfig) throws SQLException {
         super(poConnectionSource, poTableConfig);
+        invalidateEntityCacheOnChange();
+    }
+    //endregion
+
+    //region Overridden methods
+    /**
+     * Served by the entity cache when possible.
+     */
+    @Override
+    public RepoEntity queryForId(final Long plId) throws SQLException {
+        final RepoEntity loCachedRepo = plId == null ? null : mEntityCache.get(plId);
+        if (loCachedRepo != null) {
+            return loCachedRepo;
+        }
+        final long llGeneration = mEntityCache.getGeneration();
+        final RepoEntity loRepo = super.queryForId(plId);
+        if (loRepo != null) {
+            mEntityCache.put(llGeneration, loRepo);
+        }
+        return loRepo;
+    }
+    //endregion
+
+    //region Visible API
+    /**
+     * Served by the query result cache while enabled, see {@link #setResultCacheBudget(int)}.
+     */
+    public List<RepoEntity> queryForOwner(@NonNull final String psOwner) throws SQLException {
+        final QueryBuilder<RepoEntity, Long> loQueryBuilder = queryBuilder();
+        loQueryBuilder.where().eq(RepoEntity.COLUMN_OWNER, psOwner);
+        return queryCachedForOwner(loQueryBuilder);
+    }
+
+    public Observable<List<RepoEntity>> rxQueryForOwner(@NonNull final String psOwner) {
+        final Func0<Observable<List<RepoEntity>>> loFunc = () -> {
+            try {
+                return Observable.just(queryForOwner(psOwner));
+            } catch (SQLException e) {
+                return Observable.error(e);
+            }
+        };
+        return Observable.defer(loFunc);
+    }
+
+    /**
+     * The first repos of the owner, in storage order, so that a list only reads the rows it has been scrolled to.
+     * Served by the query result cache while enabled, see {@link #setResultCacheBudget(int)}.
+     *
+     * @param plLimit maximum number of repos read
+     */
+    public List<RepoEntity> queryForOwner(@NonNull final String psOwner, final long plLimit) throws SQLException {
+        final QueryBuilder<RepoEntity, Long> loQueryBuilder = queryBuilder();
+        loQueryBuilder.orderBy(BaseColumns._ID, true).limit(plLimit);
+        loQueryBuilder.where().eq(RepoEntity.COLUMN_OWNER, psOwner);
+        return queryCachedForOwner(loQueryBuilder);
+    }
+
+    public Observable<List<RepoEntity>> rxQueryForOwner(@NonNull final String psOwner, final long plLimit) {
+        final Func0<Observable<List<RepoEntity>>> loFunc = () -> {
+            try {
+                return Observable.just(queryForOwner(psOwner, plLimit));
+            } catch (SQLException e) {
+                return Observable.error(e);
+            }
+        };
+        return Observable.defer(loFunc);
+    }
+
+    /**
+     * Emits the repos of the owner by pages read lazily from the cursor, see {@link #rxStreamPages(PreparedQuery, int)}.
+     */
+    public Observable<List<RepoEntity>> rxStreamPagesForOwner(@NonNull final String psOwner, final int piPageSize) {
+        final Func0<Observable<List<RepoEntity>>> loFunc = () -> {
+            try {
+                final long llGeneration = mEntityCache.getGeneration();
+                return rxStreamPages(queryBuilder().where().eq(RepoEntity.COLUMN_OWNER, psOwner).prepare(), piPageSize)
+                        .doOnNext((final List<RepoEntity> ploPage) -> mEntityCache.putAll(llGeneration, ploPage));
+            } catch (SQLException e) {
+                return Observable.error(e);
+            }
+        };
+        return Observable.defer(loFunc);
+    }
+
+    public int deleteForOwner(@NonNull final String psOwner) throws SQLException {
+        final DeleteBuilder<RepoEntity, Long> loDeleteBuilder = deleteBuilder();
+        loDeleteBuilder.where().eq(RepoEntity.COLUMN_OWNER, psOwner);
+        return loDeleteBuilder.delete();
+    }
+
+    /**
+     * @return the stored repo with the given GitHub id, looked up through its unique index, or null
+     */
+    public RepoEntity queryForGitHubId(final int piId) throws SQLException {
+        return queryBuilder().where().eq(RepoEntity.COLUMN_ID, piId).queryForFirst();
+    }
+
+    /**
+     * Writes the given repos by chunks of {@link #BULK_CHUNK_SIZE}, one transaction per chunk, matching stored rows
+     * by GitHub id: a stored repo is updated in place (its row id is kept) only if its owner or its
+     * {@link RepoEntity#updatedAt} changed, a new one is created.
+     *
+     * @return the numbers of created and updated rows
+     */
+    public BulkWriteResult upsertByGitHubId(@NonNull final Collection<RepoEntity> ploRepos) throws SQLException {
+        BulkWriteResult loResult = new BulkWriteResult(0, 0, 0);
+        for (final List<RepoEntity> lloChunk : chunk(ploRepos)) {
+            loResult = loResult.plus(upsertChunkByGitHubId(lloChunk));
+        }
+        return loResult;
+    }
+
+    /**
+     * Full-text search over the name and description of the stored repos, through {@link RepoEntity#TABLE_SEARCH}.
+     * Each word of the query matches the words it prefixes, every word has to match.
+     * <p>
+     * Repos whose name matches every word come first, then the other matches. Each group is ranked by the weighted
+     * frequency of the words in each column, relative to their frequency over every repo: a match in the name counts
+     * twice as much as one in the description.
+     * </p>
+     * <p>
+     * The ranking is approximate: the score is computed from {@code matchinfo()} once the rows are read, and only the first {@link #SEARCH_CANDIDATE_LIMIT}
+     * matches of a group (or {@code piLimit}, if greater) are read and ranked, in docid order, that is the order the repos
+     * were stored in. A better match stored after them is left out of its group. A longer query narrows the matches.
+     * </p>
+     *
+     * @param piLimit maximum number of repos returned, at most {@link #MAX_IDS_PER_STATEMENT}
+     * @return the best matches first, empty if the query has no word
+     */
+    public List<RepoEntity> search(@NonNull final String psQuery, final int piLimit) throws SQLException {
+        final String lsMatch = toMatchExpression(psQuery, null);
+        if (lsMatch == null || piLimit <= 0) {
+            return new ArrayList<>();
+        }
+        final int liLimit = Math.min(piLimit, MAX_IDS_PER_STATEMENT);
+        final int liCandidateLimit = Math.max(liLimit, SEARCH_CANDIDATE_LIMIT);
+
+        // only the row ids and match statistics are read to rank, the entities of the best matches are loaded afterwards
+        final List<ScoredId> lloScoredIds = queryScoredIds(toMatchExpression(psQuery, SEARCH_COLUMN_NAME), liCandidateLimit);
+        Collections.sort(lloScoredIds);
+        if (lloScoredIds.size() < liLimit) {
+            final Set<Long> lloNameMatchIds = new HashSet<>();
+            for (final ScoredId loScoredId : lloScoredIds) {
+                lloNameMatchIds.add(loScoredId.id);
+            }
+            // the name matches are read again, and skipped
+            final List<ScoredId> lloOtherScoredIds = new ArrayList<>();
+            for (final ScoredId loScoredId : queryScoredIds(lsMatch, liCandidateLimit + lloNameMatchIds.size())) {
+                if (!lloNameMatchIds.contains(loScoredId.id)) {
+                    lloOtherScoredIds.add(loScoredId);
+                }
+            }
+            Collections.sort(lloOtherScoredIds);
+            lloScoredIds.addAll(lloOtherScoredIds);
+        }
+
+        final int liCount = Math.min(lloScoredIds.size(), liLimit);
+        final List<Long> lloIds = new ArrayList<>(liCount);
+        for (int liIndex = 0; liIndex < liCount; liIndex++) {
+            lloIds.add(lloScoredIds.get(liIndex).id);
+        }
+        final Map<Long, RepoEntity> lloReposById = new HashMap<>();
+        if (!lloIds.isEmpty()) {
+            for (final RepoEntity loRepo : queryBuilder().where().in(BaseColumns._ID, lloIds).query()) {
+                lloReposById.put(loRepo.getBaseId(), loRepo);
+            }
+        }
+        final List<RepoEntity> lloRepos = new ArrayList<>(liCount);
+        for (final Long llId : lloIds) {
+            final RepoEntity loRepo = lloReposById.get(llId);
+            if (loRepo != null) {
+                lloRepos.add(loRepo);
+            }
+        }
+        return lloRepos;
+    }
+
+    public Observable<List<RepoEntity>> rxSearch(@NonNull final String psQuery, final int piLimit) {
+        final Func0<Observable<List<RepoEntity>>> loFunc = () -> {
+            try {
+                return Observable.just(search(psQuery, piLimit));
+            } catch (SQLException e) {
+                return Observable.error(e);
+            }
+        };
+        return Observable.defer(loFunc);
+    }
+
+    /**
+     * @return the entity cache, for its hit, miss and eviction counts
+     */
+    public EntityCache<RepoEntity> getEntityCache() {
+        return mEntityCache;
+    }
+
+    /**
+     * Deletes the repos of the owner whose GitHub id is not in the given set.
+     *
+     * @return the number of deleted rows
+     */
+    public int deleteForOwnerExcept(@NonNull final String psOwner, @NonNull final Set<Integer> ploKeptIds) throws SQLException {
+        // the row id column is always selected too
+        final List<RepoEntity> lloStoredRepos = queryBuilder()
+                .selectColumns(RepoEntity.COLUMN_ID)
+                .where()
+                .eq(RepoEntity.COLUMN_OWNER, psOwner)
+                .query();
+        final List<Long> lloRowIds = new ArrayList<>();
+        for (final RepoEntity loStoredRepo : lloStoredRepos) {
+            if (!ploKeptIds.contains(loStoredRepo.id)) {
+                lloRowIds.add(loStoredRepo.getBaseId());
+            }
+        }
+        int liDeleted = 0;
+        // one SQL argument per id, under the SQLite limit of 999
+        for (int liStart = 0; liStart < lloRowIds.size(); liStart += MAX_IDS_PER_STATEMENT) {
+            liDeleted += deleteIds(lloRowIds.subList(liStart, Math.min(lloRowIds.size(), liStart + MAX_IDS_PER_STATEMENT)));
+        }
+        return liDeleted;
+    }
+    //endregion
+
+    //region Specific job
+    /**
+     * @return the row ids of at most {@code piLimit} matches, with their score
+     */
+    private List<ScoredId> queryScoredIds(@NonNull final String psMatch, final int piLimit) throws SQLException {
+        final GenericRawResults<Object[]> loResults = queryRaw(
+                "SELECT `docid`, matchinfo(`" + RepoEntity.TABLE_SEARCH + "`, 'pcx') FROM `" + RepoEntity.TABLE_SEARCH + "` WHERE `" + RepoEntity.TABLE_SEARCH + "` MATCH ? LIMIT " + piLimit,
+                new DataType[]{DataType.LONG, DataType.BYTE_ARRAY},
+                psMatch);
+        final List<ScoredId> lloScoredIds = new ArrayList<>();
+        // reads every row then closes the results
+        for (final Object[] loRow : loResults.getResults()) {
+            lloScoredIds.add(new ScoredId((Long) loRow[0], score((byte[]) loRow[1])));
+        }
+        return lloScoredIds;
+    }
+
+    /**
+     * Keeps letters and digits only, so that no input can be read as an FTS operator, and makes every word a prefix.
+     * Words are lowercased: the default tokenizer only folds ASCII case, and "OR", "AND" or "NOT" stay plain words.
+     *
+     * @param psColumn the column every word has to match, null for any column
+     * @return the MATCH expression, null if the query has no word
+     */
+    private static String toMatchExpression(@NonNull final String psQuery, final String psColumn) {
+        final StringBuilder loBuilder = new StringBuilder();
+        for (final String lsWord : psQuery.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!lsWord.isEmpty()) {
+                if (loBuilder.length() > 0) {
+                    loBuilder.append(' ');
+                }
+                if (psColumn != null) {
+                    loBuilder.append(psColumn).append(':');
+                }
+                loBuilder.append(lsWord).append('*');
+            }
+        }
+        return loBuilder.length() == 0 ? null : loBuilder.toString();
+    }
+
+    /**
+     * @param pyMatchInfo result of matchinfo 'pcx': phrase count, column count, then for each phrase and column
+     *                    the hits in this row, the hits in every row and the rows with hits, as native 32-bit integers
+     */
+    private static double score(@NonNull final byte[] pyMatchInfo) {
+        final IntBuffer loInts = ByteBuffer.wrap(pyMatchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        final int liPhraseCount = loInts.get(0);
+        final int liColumnCount = loInts.get(1);
+        double ldScore = 0d;
+        for (int liPhrase = 0; liPhrase < liPhraseCount; liPhrase++) {
+            for (int liColumn = 0; liColumn < liColumnCount; liColumn++) {
+                final int liOffset = 2 + 3 * (liPhrase * liColumnCount + liColumn);
+                final int liRowHits = loInts.get(liOffset);
+                final int liGlobalHits = loInts.get(liOffset + 1);
+                if (liRowHits > 0 && liGlobalHits > 0) {
+                    ldScore += SEARCH_COLUMN_WEIGHTS[liColumn] * liRowHits / liGlobalHits;
+                }
+            }
+        }
+        return ldScore;
+    }
+
+    private List<RepoEntity> queryCachedForOwner(@NonNull final QueryBuilder<RepoEntity, Long> poQueryBuilder) throws SQLException {
+        final long llGeneration = mEntityCache.getGeneration();
+        final List<RepoEntity> lloRepos = queryCached(poQueryBuilder);
+        mEntityCache.putAll(llGeneration, lloRepos);
+        return lloRepos;
+    }
+
+    private void invalidateEntityCacheOnChange() {
+        // published once the write is committed: rows read before it are either dropped by the generation check or evicted here
+        rxTableChanges().subscribe((final String psTableName) -> mEntityCache.invalidate());
+    }
+
+    private BulkWriteResult upsertChunkByGitHubId(@NonNull final List<RepoEntity> ploRepos) throws SQLException {
+        final List<Integer> lloIds = new ArrayList<>(ploRepos.size());
+        for (final RepoEntity loRepo : ploRepos) {
+            if (loRepo.id != null) {
+                lloIds.add(loRepo.id);
+            }
+        }
+        final Map<Integer, RepoEntity> lloStoredRepos = new HashMap<>();
+        if (!lloIds.isEmpty()) {
+            for (final RepoEntity loStoredRepo : queryBuilder().where().in(RepoEntity.COLUMN_ID, lloIds).query()) {
+                lloStoredRepos.put(loStoredRepo.id, loStoredRepo);
+            }
+        }
+
+        return callBatchTasks(() -> {
+            int liCreated = 0;
+            int liUpdated = 0;
+            for (final RepoEntity loRepo : ploRepos) {
+                final RepoEntity loStoredRepo = loRepo.id == null ? null : lloStoredRepos.get(loRepo.id);
+                if (loStoredRepo == null) {
+                    create(loRepo);
+                    ++liCreated;
+                    if (loRepo.id != null) {
+                        // a repo listed twice (shifted between two pages) is then updated instead of breaking the unique index
+                        lloStoredRepos.put(loRepo.id, loRepo);
+                    }
+                } else if (loRepo.updatedAt == null || !loRepo.updatedAt.equals(loStoredRepo.updatedAt) || (loRepo.owner != null && !loRepo.owner.equals(loStoredRepo.owner))) {
+                    loStoredRepo.name = loRepo.name;
+                    loStoredRepo.description = loRepo.description;
+                    loStoredRepo.url = loRepo.url;
+                    loStoredRepo.avatarUrl = loRepo.avatarUrl;
+                    loStoredRepo.updatedAt = loRepo.updatedAt;
+                    // a transferred repo moves to its new owner
+                    loStoredRepo.owner = loRepo.owner;
+                    update(loStoredRepo);
+                    ++liUpdated;
+                }
+            }
+            return new BulkWriteResult(liCreated, liUpdated, 0);
+        });
+    }
+    //endregion
+
+    //region Inner classes
+    private static final class ScoredId implements Comparable<ScoredId> {
+        private final long id;
+        private final double score;
+
+        private ScoredId(final long plId, final double pdScore) {
+            id = plId;
+            score = pdScore;
+        }
+
+        /**
+         * Best score first, then by row id for a stable order.
+         */
+        @Override
+        public int compareTo(@NonNull final ScoredId poOther) {
+            final int liByScore = Double.compare(poOther.score, score);
+            return liByScore != 0 ? liByScore : (id < poOther.id ? -1 : (id == poOther.id ? 0 : 1));
+        }
     }
     //endregion
 }
@@ -0,0 +1,55 @@
+package fr.guddy.androidstarter.persistence.dao;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
+
+import java.sql.SQLException;
+
+import fr.guddy.androidstarter.persistence.entities.SyncStateEntity;
+
+public class DAOSyncState extends AbstractBaseDAOImpl<SyncStateEntity> {
+    //region Constructors matching super
+    public DAOSyncState(final ConnectionSource poConnectionSource) throws SQLException {
+        this(poConnectionSource, SyncStateEntity.class);
+    }
+
+    public DAOSyncState(final ConnectionSource poConnectionSource, final Class<SyncStateEntity> poDataClass) throws SQLException {
+        super(poConnectionSource, poDataClass);
+    }
+
+    public DAOSyncState(final ConnectionSource poConnectionSource, final DatabaseTableConfig<SyncStateEntity> poTableConfig) throws SQLException {
+        super(poConnectionSource, poTableConfig);
+    }
+    //endregion
+
+    //region Visible API
+    @Nullable
+    public SyncStateEntity findBySyncKey(@NonNull final String psSyncKey) throws SQLException {
+        return queryBuilder()
+                .where()
+                .eq(SyncStateEntity.COLUMN_SYNC_KEY, psSyncKey)
+                .queryForFirst();
+    }
+
+    /**
+     * @param pbFullSync true if the sync walked the whole collection
+     */
+    public void save(@NonNull final String psSyncKey, @Nullable final String psWatermark, final boolean pbFullSync) throws SQLException {
+        SyncStateEntity loSyncState = findBySyncKey(psSyncKey);
+        if (loSyncState == null) {
+            loSyncState = new SyncStateEntity();
+            loSyncState.syncKey = psSyncKey;
+        }
+        final long llNow = System.currentTimeMillis();
+        loSyncState.watermark = psWatermark;
+        if (pbFullSync) {
+            loSyncState.lastFullSyncAt = llNow;
+        }
+        loSyncState.updatedAt = llNow;
+        createOrUpdate(loSyncState);
+    }
+    //endregion
+}
@@ -0,0 +1,96 @@
+package fr.guddy.androidstarter.persistence.dao;
+
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+
+import java.util.Collection;
+
+import fr.guddy.androidstarter.persistence.entities.AbstractOrmLiteEntity;
+
+/**
+ * Size-bounded LRU cache of entities keyed by row id, which counts its hits, misses and evictions.
+ * <p>
+ * Reads may race with writes, so an entity is put along with the generation observed before it was read, and dropped if
+ * the cache has been invalidated since: a read finished after a write cannot store the rows it saw before the write.
+ * Thread-safe.
+ * </p>
+ */
+public class EntityCache<DataType extends AbstractOrmLiteEntity> {
+    //region Fields
+    private final LruCache<Long, DataType> mCache;
+    private long mlGeneration;
+    private int miInvalidatedCount;
+    //endregion
+
+    //region Constructor
+    public EntityCache(final int piMaxSize) {
+        mCache = new LruCache<>(piMaxSize);
+    }
+    //endregion
+
+    //region Visible API
+    /**
+     * @return the generation to give to {@link #put(long, AbstractOrmLiteEntity)}, read before querying the entities
+     */
+    public synchronized long getGeneration() {
+        return mlGeneration;
+    }
+
+    /**
+     * @return the cached entity, or null on a miss
+     */
+    public DataType get(final long plId) {
+        return mCache.get(plId);
+    }
+
+    public synchronized void put(final long plGeneration, @NonNull final DataType poEntity) {
+        if (plGeneration == mlGeneration) {
+            mCache.put(poEntity.getBaseId(), poEntity);
+        }
+    }
+
+    public synchronized void putAll(final long plGeneration, @NonNull final Collection<DataType> ploEntities) {
+        if (plGeneration == mlGeneration) {
+            for (final DataType loEntity : ploEntities) {
+                mCache.put(loEntity.getBaseId(), loEntity);
+            }
+        }
+    }
+
+    /**
+     * Drops every entity, to be called once a write is visible to readers.
+     */
+    public synchronized void invalidate() {
+        ++mlGeneration;
+        miInvalidatedCount += mCache.size();
+        mCache.evictAll();
+    }
+
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * @return the number of entities evicted to stay under the maximum size, invalidations excluded
+     */
+    public synchronized int getEvictionCount() {
+        return mCache.evictionCount() - miInvalidatedCount;
+    }
+
+    public int getSize() {
+        return mCache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "size = " + getSize() + "/" + mCache.maxSize()
+                + ", hits = " + getHitCount()
+                + ", misses = " + getMissCount()
+                + ", evictions = " + getEvictionCount();
+    }
+    //endregion
+}
@@ -42,6 +42,16 @@ import rx.Observable;
  */
 public interface IRxDao<T, ID> extends Dao<T, ID> {
 
+    /**
+     * Items written per transaction by the bulk writes.
+     */
+    int BULK_CHUNK_SIZE = 500;
+
+    /**
+     * Quiet period after the last table change before a live query re-runs.
+     */
+    long LIVE_QUERY_DEBOUNCE_MS = 100L;
+
     /**
      * Retrieves an object associated with a specific ID.
      *
@@ -331,6 +341,33 @@ public interface IRxDao<T, ID> extends Dao<T, ID> {
      */
     Observable<CloseableIterator<T>> rxIterator(final PreparedQuery<T> preparedQuery, final int resultFlags);
 
+    /**
+     * Emits every item of the table lazily, one row read from the cursor per requested item, so that memory usage does
+     * not depend on the size of the table. Unlike {@link #rxIterator()}, the cursor is owned by the {@link Observable}:
+     * it is closed on completion, on error and on unsubscribe.
+     * <p>
+     * Rows are read on the thread that requests them: use {@link Observable#subscribeOn(rx.Scheduler)} to keep them off
+     * the main thread, requests made downstream of {@link Observable#observeOn(rx.Scheduler)} being rescheduled on it.
+     * </p>
+     */
+    Observable<T> rxStreamAll();
+
+    /**
+     * Same as {@link #rxStreamAll()} but with a prepared rxQuery parameter.
+     */
+    Observable<T> rxStream(final PreparedQuery<T> preparedQuery);
+
+    /**
+     * Same as {@link #rxStreamAll()} but emitting pages of at most pageSize items, one page read per requested item.
+     * The last page may be smaller, an empty table emits no page.
+     */
+    Observable<List<T>> rxStreamAllPages(final int pageSize);
+
+    /**
+     * Same as {@link #rxStreamAllPages(int)} but with a prepared rxQuery parameter.
+     */
+    Observable<List<T>> rxStreamPages(final PreparedQuery<T> preparedQuery, final int pageSize);
+
     /**
      * <p>
      * This makes a one time use iterable class that can be closed afterwards. The DAO itself is
@@ -474,6 +511,84 @@ public interface IRxDao<T, ID> extends Dao<T, ID> {
      */
     <CT> Observable<CT> rxCallBatchTasks(final Callable<CT> callable) throws Exception;
 
+    /**
+     * Creates or updates every item, as {@link #createOrUpdate(Object)} does, by chunks of {@link #BULK_CHUNK_SIZE} items.
+     * Each chunk is written in a single transaction, through {@link #callBatchTasks(Callable)}, instead of one implicit
+     * transaction (and one journal sync) per item.
+     *
+     * @return the numbers of created and updated rows
+     */
+    BulkWriteResult upsertAll(final Collection<T> datas) throws SQLException;
+
+    /**
+     * Same as {@link #upsertAll(Collection)}, as an {@link Observable}.
+     */
+    Observable<BulkWriteResult> rxUpsertAll(final Collection<T> datas);
+
+    /**
+     * Deletes every row then creates every item, in a single transaction: readers never see the table empty
+     * nor partially written, whatever the number of items.
+     *
+     * @return the numbers of deleted and created rows
+     */
+    BulkWriteResult replaceAll(final Collection<T> datas) throws SQLException;
+
+    /**
+     * Same as {@link #replaceAll(Collection)}, only the rows matched by the prepared delete being deleted.
+     *
+     * @param preparedDelete rows to replace, null for every row
+     */
+    BulkWriteResult replaceAll(final PreparedDelete<T> preparedDelete, final Collection<T> datas) throws SQLException;
+
+    /**
+     * Same as {@link #replaceAll(Collection)}, as an {@link Observable}.
+     */
+    Observable<BulkWriteResult> rxReplaceAll(final Collection<T> datas);
+
+    /**
+     * Same as {@link #replaceAll(PreparedDelete, Collection)}, as an {@link Observable}.
+     */
+    Observable<BulkWriteResult> rxReplaceAll(final PreparedDelete<T> preparedDelete, final Collection<T> datas);
+
+    /**
+     * Enables the query result cache of {@link #queryCached(QueryBuilder)}, disabled by default. Results are dropped
+     * by any write to the table. The other query methods never use it.
+     *
+     * @param maxRows memory budget, as the total number of rows of the cached results, 0 to disable the cache
+     */
+    void setResultCacheBudget(final int maxRows);
+
+    /**
+     * Same as {@link QueryBuilder#query()}, the result being cached by statement and argument values once
+     * {@link #setResultCacheBudget(int)} enabled the cache.
+     *
+     * @return a list of its own for each call, whose entities are shared by every caller while the cache is enabled
+     */
+    List<T> queryCached(final QueryBuilder<T, ID> queryBuilder) throws SQLException;
+
+    /**
+     * Same as {@link #queryCached(QueryBuilder)}, as an {@link Observable}.
+     */
+    Observable<List<T>> rxQueryCached(final QueryBuilder<T, ID> queryBuilder);
+
+    /**
+     * Emits the table name after each write of this DAO which changed rows: create, update, delete, raw statements.
+     * Writes inside {@link #callBatchTasks(Callable)} are signaled once, when the outermost batch ends.
+     * Never completes.
+     */
+    Observable<String> rxTableChanges();
+
+    /**
+     * Runs the query on subscribe, then again each time the table changes, after {@link #LIVE_QUERY_DEBOUNCE_MS} without
+     * further change. A run still in progress is unsubscribed when a new one starts. Never completes.
+     */
+    <R> Observable<R> rxLiveQuery(final Observable<R> query);
+
+    /**
+     * Same as {@link #rxLiveQuery(Observable)} with a custom quiet period.
+     */
+    <R> Observable<R> rxLiveQuery(final Observable<R> query, final long debounceMs);
+
     /**
      * Return true if the two parameters are equal. This checks each of the fields defined in the database to see if
      * they are equal. Useful for testing and debugging.
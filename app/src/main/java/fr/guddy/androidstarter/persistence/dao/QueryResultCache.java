@@ -0,0 +1,143 @@
+package fr.guddy.androidstarter.persistence.dao;
+
+import android.support.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU cache of query results, keyed by statement and argument values, bounded by the total number of cached rows.
+ * <p>
+ * Results are stored as given and must be unmodifiable snapshots, the cached entities being shared by every reader.
+ * As for {@link EntityCache}, a result is put along with the generation observed before the query ran, and dropped if the
+ * cache has been invalidated since. Thread-safe.
+ * </p>
+ */
+public class QueryResultCache<DataType> {
+    //region Fields
+    private final int miMaxRows;
+    private final LinkedHashMap<Key, List<DataType>> mResults = new LinkedHashMap<>(16, 0.75f, true);
+    private int miRowCount;
+    private long mlGeneration;
+    private int miHitCount;
+    private int miMissCount;
+    private int miEvictionCount;
+    //endregion
+
+    //region Constructor
+    /**
+     * @param piMaxRows memory budget, as the total number of rows of the cached results
+     */
+    public QueryResultCache(final int piMaxRows) {
+        if (piMaxRows <= 0) {
+            throw new IllegalArgumentException("Max rows must be positive");
+        }
+        miMaxRows = piMaxRows;
+    }
+    //endregion
+
+    //region Visible API
+    public synchronized long getGeneration() {
+        return mlGeneration;
+    }
+
+    /**
+     * @return the cached result, or null on a miss
+     */
+    public synchronized List<DataType> get(@NonNull final Key poKey) {
+        final List<DataType> lloResult = mResults.get(poKey);
+        if (lloResult == null) {
+            ++miMissCount;
+        } else {
+            ++miHitCount;
+        }
+        return lloResult;
+    }
+
+    /**
+     * A result larger than the budget is not cached, the least recently used ones are evicted to make room for the others.
+     */
+    public synchronized void put(final long plGeneration, @NonNull final Key poKey, @NonNull final List<DataType> ploResult) {
+        if (plGeneration != mlGeneration || ploResult.size() > miMaxRows) {
+            return;
+        }
+        final List<DataType> lloPrevious = mResults.put(poKey, ploResult);
+        if (lloPrevious != null) {
+            miRowCount -= lloPrevious.size();
+        }
+        miRowCount += ploResult.size();
+
+        // access order: the result just put comes last, and fits in the budget on its own
+        final Iterator<Map.Entry<Key, List<DataType>>> loIterator = mResults.entrySet().iterator();
+        while (miRowCount > miMaxRows && loIterator.hasNext()) {
+            miRowCount -= loIterator.next().getValue().size();
+            loIterator.remove();
+            ++miEvictionCount;
+        }
+    }
+
+    /**
+     * Drops every result, to be called once a write to the table is visible to readers.
+     */
+    public synchronized void invalidate() {
+        ++mlGeneration;
+        mResults.clear();
+        miRowCount = 0;
+    }
+
+    public synchronized int getHitCount() {
+        return miHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return miMissCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return miEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "results = " + mResults.size()
+                + ", rows = " + miRowCount + "/" + miMaxRows
+                + ", hits = " + miHitCount
+                + ", misses = " + miMissCount
+                + ", evictions = " + miEvictionCount;
+    }
+    //endregion
+
+    //region Inner classes
+    /**
+     * A statement and the values of its arguments.
+     */
+    public static final class Key {
+        private final String mStatement;
+        private final List<Object> mArguments;
+
+        public Key(@NonNull final String psStatement, @NonNull final List<Object> ploArguments) {
+            mStatement = psStatement;
+            mArguments = ploArguments;
+        }
+
+        @Override
+        public boolean equals(final Object poOther) {
+            if (this == poOther) {
+                return true;
+            }
+            if (!(poOther instanceof Key)) {
+                return false;
+            }
+            final Key loKey = (Key) poOther;
+            return mStatement.equals(loKey.mStatement) && mArguments.equals(loKey.mArguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mStatement.hashCode() + mArguments.hashCode();
+        }
+    }
+    //endregion
+}
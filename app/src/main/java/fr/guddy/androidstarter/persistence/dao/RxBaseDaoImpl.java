@@ -9,27 +9,55 @@ import com.j256.ormlite.dao.ObjectCache;
 import com.j256.ormlite.dao.RawRowMapper;
 import com.j256.ormlite.dao.RawRowObjectMapper;
 import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.stmt.ArgumentHolder;
 import com.j256.ormlite.stmt.GenericRowMapper;
 import com.j256.ormlite.stmt.PreparedDelete;
 import com.j256.ormlite.stmt.PreparedQuery;
 import com.j256.ormlite.stmt.PreparedUpdate;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.StatementBuilder;
 import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.support.DatabaseConnection;
 import com.j256.ormlite.support.DatabaseResults;
 import com.j256.ormlite.table.DatabaseTableConfig;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import fr.guddy.androidstarter.persistence.entities.AbstractOrmLiteEntity;
 import rx.Observable;
+import rx.Observer;
+import rx.exceptions.Exceptions;
 import rx.functions.Func0;
+import rx.observables.SyncOnSubscribe;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
 
 public abstract class RxBaseDaoImpl<DataType extends AbstractOrmLiteEntity, IdType> extends BaseDaoImpl<DataType, IdType> implements IRxDao<DataType, IdType> {
 
+    //region Fields
+    private final Subject<String, String> mTableChanges = PublishSubject.<String>create().toSerialized();
+    /**
+     * Null while disabled, see {@link #setResultCacheBudget(int)}.
+     */
+    private volatile QueryResultCache<DataType> mResultCache;
+    /**
+     * Per thread, as {@link #callBatchTasks(Callable)} runs its tasks on the calling thread.
+     */
+    private final ThreadLocal<BatchState> mBatchState = new ThreadLocal<BatchState>() {
+        @Override
+        protected BatchState initialValue() {
+            return new BatchState();
+        }
+    };
+    //endregion
+
     //region Matching constructor
     protected RxBaseDaoImpl(final Class<DataType> poDataClass) throws SQLException {
         super(poDataClass);
@@ -345,6 +373,26 @@ public abstract class RxBaseDaoImpl<DataType extends AbstractOrmLiteEntity, IdTy
         return Observable.defer(loFunc);
     }
 
+    @Override
+    public Observable<DataType> rxStreamAll() {
+        return stream(this::iterator);
+    }
+
+    @Override
+    public Observable<DataType> rxStream(final PreparedQuery<DataType> preparedQuery) {
+        return stream(() -> openIterator(preparedQuery));
+    }
+
+    @Override
+    public Observable<List<DataType>> rxStreamAllPages(final int pageSize) {
+        return streamPages(this::iterator, pageSize);
+    }
+
+    @Override
+    public Observable<List<DataType>> rxStreamPages(final PreparedQuery<DataType> preparedQuery, final int pageSize) {
+        return streamPages(() -> openIterator(preparedQuery), pageSize);
+    }
+
     @Override
     public Observable<CloseableWrappedIterable<DataType>> rxGetWrappedIterable() {
         final Func0<Observable<CloseableWrappedIterable<DataType>>> loFunc = () -> Observable.just(getWrappedIterable());
@@ -465,6 +513,75 @@ public abstract class RxBaseDaoImpl<DataType extends AbstractOrmLiteEntity, IdTy
         return Observable.defer(loFunc);
     }
 
+    @Override
+    public BulkWriteResult upsertAll(final Collection<DataType> datas) throws SQLException {
+        // created, updated
+        final int[] loCounts = new int[2];
+        for (final List<DataType> lloChunk : chunk(datas)) {
+            callBatchTasks(() -> {
+                for (final DataType loData : lloChunk) {
+                    final CreateOrUpdateStatus loStatus = createOrUpdate(loData);
+                    if (loStatus.isCreated()) {
+                        ++loCounts[0];
+                    } else if (loStatus.isUpdated()) {
+                        ++loCounts[1];
+                    }
+                }
+                return null;
+            });
+        }
+        return new BulkWriteResult(loCounts[0], loCounts[1], 0);
+    }
+
+    @Override
+    public Observable<BulkWriteResult> rxUpsertAll(final Collection<DataType> datas) {
+        final Func0<Observable<BulkWriteResult>> loFunc = () -> {
+            try {
+                return Observable.just(upsertAll(datas));
+            } catch (SQLException e) {
+                return Observable.error(e);
+            }
+        };
+        return Observable.defer(loFunc);
+    }
+
+    @Override
+    public BulkWriteResult replaceAll(final Collection<DataType> datas) throws SQLException {
+        return replaceAll(null, datas);
+    }
+
+    @Override
+    public BulkWriteResult replaceAll(final PreparedDelete<DataType> preparedDelete, final Collection<DataType> datas) throws SQLException {
+        // created, deleted
+        final int[] loCounts = new int[2];
+        // a single transaction, so that readers see either the old rows or the new ones
+        callBatchTasks(() -> {
+            loCounts[1] = preparedDelete == null ? deleteBuilder().delete() : delete(preparedDelete);
+            for (final DataType loData : datas) {
+                loCounts[0] += create(loData);
+            }
+            return null;
+        });
+        return new BulkWriteResult(loCounts[0], 0, loCounts[1]);
+    }
+
+    @Override
+    public Observable<BulkWriteResult> rxReplaceAll(final Collection<DataType> datas) {
+        return rxReplaceAll(null, datas);
+    }
+
+    @Override
+    public Observable<BulkWriteResult> rxReplaceAll(final PreparedDelete<DataType> preparedDelete, final Collection<DataType> datas) {
+        final Func0<Observable<BulkWriteResult>> loFunc = () -> {
+            try {
+                return Observable.just(replaceAll(preparedDelete, datas));
+            } catch (SQLException e) {
+                return Observable.error(e);
+            }
+        };
+        return Observable.defer(loFunc);
+    }
+
     @Override
     public Observable<Boolean> rxObjectsEqual(final DataType data1, final DataType data2) {
         final Func0<Observable<Boolean>> loFunc = () -> {
@@ -633,4 +750,247 @@ public abstract class RxBaseDaoImpl<DataType extends AbstractOrmLiteEntity, IdTy
         return Observable.defer(loFunc);
     }
     //endregion
+
+    //region Query result cache
+    @Override
+    public void setResultCacheBudget(final int maxRows) {
+        mResultCache = maxRows > 0 ? new QueryResultCache<>(maxRows) : null;
+    }
+
+    /**
+     * @return the query result cache, for its hit, miss and eviction counts, or null while disabled
+     */
+    public QueryResultCache<DataType> getResultCache() {
+        return mResultCache;
+    }
+
+    @Override
+    public List<DataType> queryCached(final QueryBuilder<DataType, IdType> queryBuilder) throws SQLException {
+        final QueryResultCache<DataType> loCache = mResultCache;
+        if (loCache == null) {
+            return queryBuilder.query();
+        }
+        final StatementBuilder.StatementInfo loStatementInfo = queryBuilder.prepareStatementInfo();
+        final List<Object> lloArguments = new ArrayList<>(loStatementInfo.getArgList().size());
+        for (final ArgumentHolder loArgument : loStatementInfo.getArgList()) {
+            lloArguments.add(loArgument.getSqlArgValue());
+        }
+        final QueryResultCache.Key loKey = new QueryResultCache.Key(loStatementInfo.getStatement(), lloArguments);
+
+        // a copy is returned, so that a caller sorting or filtering its result never alters the cached one
+        final List<DataType> lloCachedResult = loCache.get(loKey);
+        if (lloCachedResult != null) {
+            return new ArrayList<>(lloCachedResult);
+        }
+        final long llGeneration = loCache.getGeneration();
+        final List<DataType> lloResult = Collections.unmodifiableList(queryBuilder.query());
+        loCache.put(llGeneration, loKey, lloResult);
+        return new ArrayList<>(lloResult);
+    }
+
+    @Override
+    public Observable<List<DataType>> rxQueryCached(final QueryBuilder<DataType, IdType> queryBuilder) {
+        final Func0<Observable<List<DataType>>> loFunc = () -> {
+            try {
+                return Observable.just(queryCached(queryBuilder));
+            } catch (SQLException e) {
+                return Observable.error(e);
+            }
+        };
+        return Observable.defer(loFunc);
+    }
+    //endregion
+
+    //region Change notifications
+    @Override
+    public Observable<String> rxTableChanges() {
+        return mTableChanges.asObservable();
+    }
+
+    @Override
+    public <R> Observable<R> rxLiveQuery(final Observable<R> query) {
+        return rxLiveQuery(query, LIVE_QUERY_DEBOUNCE_MS);
+    }
+
+    @Override
+    public <R> Observable<R> rxLiveQuery(final Observable<R> query, final long debounceMs) {
+        return rxTableChanges()
+                .onBackpressureLatest()
+                .debounce(debounceMs, TimeUnit.MILLISECONDS)
+                .startWith(getTableName())
+                // a change while the query is running restarts it, the stale run being unsubscribed
+                .switchMap((final String psTableName) -> query);
+    }
+
+    @Override
+    public <CT> CT callBatchTasks(final Callable<CT> callable) throws SQLException {
+        final BatchState loState = mBatchState.get();
+        loState.depth++;
+        try {
+            return super.callBatchTasks(callable);
+        } finally {
+            loState.depth--;
+            if (loState.depth == 0 && loState.changed) {
+                loState.changed = false;
+                publishChange();
+            }
+        }
+    }
+
+    @Override
+    public int create(final DataType data) throws SQLException {
+        return notifyChange(super.create(data));
+    }
+
+    @Override
+    public int create(final Collection<DataType> datas) throws SQLException {
+        return notifyChange(super.create(datas));
+    }
+
+    @Override
+    public int update(final DataType data) throws SQLException {
+        return notifyChange(super.update(data));
+    }
+
+    @Override
+    public int updateId(final DataType data, final IdType newId) throws SQLException {
+        return notifyChange(super.updateId(data, newId));
+    }
+
+    @Override
+    public int update(final PreparedUpdate<DataType> preparedUpdate) throws SQLException {
+        return notifyChange(super.update(preparedUpdate));
+    }
+
+    @Override
+    public int delete(final DataType data) throws SQLException {
+        return notifyChange(super.delete(data));
+    }
+
+    @Override
+    public int deleteById(final IdType id) throws SQLException {
+        return notifyChange(super.deleteById(id));
+    }
+
+    @Override
+    public int delete(final Collection<DataType> datas) throws SQLException {
+        return notifyChange(super.delete(datas));
+    }
+
+    @Override
+    public int deleteIds(final Collection<IdType> ids) throws SQLException {
+        return notifyChange(super.deleteIds(ids));
+    }
+
+    @Override
+    public int delete(final PreparedDelete<DataType> preparedDelete) throws SQLException {
+        return notifyChange(super.delete(preparedDelete));
+    }
+
+    @Override
+    public int executeRaw(final String statement, final String... arguments) throws SQLException {
+        return notifyChange(super.executeRaw(statement, arguments));
+    }
+
+    @Override
+    public int executeRawNoArgs(final String statement) throws SQLException {
+        return notifyChange(super.executeRawNoArgs(statement));
+    }
+
+    @Override
+    public int updateRaw(final String statement, final String... arguments) throws SQLException {
+        return notifyChange(super.updateRaw(statement, arguments));
+    }
+    //endregion
+
+    //region Specific job
+    /**
+     * Signals a write which changed rows, right away or when the outermost batch ends.
+     *
+     * @return the given row count
+     */
+    private int notifyChange(final int piRowCount) {
+        if (piRowCount > 0) {
+            final BatchState loState = mBatchState.get();
+            if (loState.depth > 0) {
+                loState.changed = true;
+            } else {
+                publishChange();
+            }
+        }
+        return piRowCount;
+    }
+
+    private void publishChange() {
+        final QueryResultCache<DataType> loCache = mResultCache;
+        if (loCache != null) {
+            loCache.invalidate();
+        }
+        mTableChanges.onNext(getTableName());
+    }
+
+    private CloseableIterator<DataType> openIterator(final PreparedQuery<DataType> preparedQuery) {
+        try {
+            return iterator(preparedQuery);
+        } catch (SQLException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    /**
+     * The iterator is opened on subscribe, read on each request and closed on unsubscribe, which {@link SyncOnSubscribe}
+     * also does once terminated.
+     */
+    private static <T> Observable<T> stream(final Func0<CloseableIterator<T>> poIteratorFactory) {
+        return Observable.create(SyncOnSubscribe.<CloseableIterator<T>, T>createStateful(
+                poIteratorFactory,
+                (final CloseableIterator<T> poIterator, final Observer<? super T> poObserver) -> {
+                    if (poIterator.hasNext()) {
+                        poObserver.onNext(poIterator.next());
+                    } else {
+                        poObserver.onCompleted();
+                    }
+                    return poIterator;
+                },
+                CloseableIterator::closeQuietly));
+    }
+
+    private static <T> Observable<List<T>> streamPages(final Func0<CloseableIterator<T>> poIteratorFactory, final int piPageSize) {
+        if (piPageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return Observable.create(SyncOnSubscribe.<CloseableIterator<T>, List<T>>createStateful(
+                poIteratorFactory,
+                (final CloseableIterator<T> poIterator, final Observer<? super List<T>> poObserver) -> {
+                    final List<T> lloPage = new ArrayList<>(piPageSize);
+                    while (lloPage.size() < piPageSize && poIterator.hasNext()) {
+                        lloPage.add(poIterator.next());
+                    }
+                    if (!lloPage.isEmpty()) {
+                        poObserver.onNext(lloPage);
+                    }
+                    if (lloPage.size() < piPageSize) {
+                        poObserver.onCompleted();
+                    }
+                    return poIterator;
+                },
+                CloseableIterator::closeQuietly));
+    }
+
+    protected static <T> List<List<T>> chunk(final Collection<T> datas) {
+        final List<T> lloDatas = new ArrayList<>(datas);
+        final List<List<T>> lloChunks = new ArrayList<>();
+        for (int liStart = 0; liStart < lloDatas.size(); liStart += BULK_CHUNK_SIZE) {
+            lloChunks.add(lloDatas.subList(liStart, Math.min(lloDatas.size(), liStart + BULK_CHUNK_SIZE)));
+        }
+        return lloChunks;
+    }
+    //endregion
+
+    //region Inner classes
+    private static final class BatchState {
+        private int depth;
+        private boolean changed;
+    }
+    //endregion
 }
@@ -0,0 +1,26 @@
+package fr.guddy.androidstarter.persistence.entities;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+import fr.guddy.androidstarter.persistence.dao.DAOHttpValidator;
+
+/**
+ * HTTP cache validators ({@code ETag}, {@code Last-Modified}) of the last successful response to a request.
+ */
+@DatabaseTable(tableName = "HTTP_VALIDATOR", daoClass = DAOHttpValidator.class)
+public class HttpValidatorEntity extends AbstractOrmLiteEntity {
+    public static final String COLUMN_REQUEST_KEY = "requestKey";
+
+    @DatabaseField(columnName = COLUMN_REQUEST_KEY, unique = true, canBeNull = false)
+    public String requestKey;
+
+    @DatabaseField
+    public String etag;
+
+    @DatabaseField
+    public String lastModified;
+
+    @DatabaseField
+    public long updatedAt;
+}
@@ -13,8 +13,19 @@ import fr.guddy.androidstarter.rest.dto.DTORepo;
 @Mappable(with = DTORepo.class)
 @DatabaseTable(tableName = "REPO", daoClass = DAORepo.class)
 public class RepoEntity extends AbstractOrmLiteEntity implements Serializable {
+    /**
+     * Full-text index over the name and description, see {@link DAORepo#search(String, int)}.
+     */
+    public static final String TABLE_SEARCH = "REPO_FTS";
+    public static final String COLUMN_ID = "id";
+    public static final String COLUMN_OWNER = "owner";
+    public static final String COLUMN_UPDATED_AT = "updatedAt";
+
+    /**
+     * GitHub id of the repo, its natural key: unique, so that a sync updates the stored row in place.
+     */
     @Mapped
-    @DatabaseField
+    @DatabaseField(columnName = COLUMN_ID, uniqueIndex = true)
     public Integer id;
 
     @Mapped
@@ -31,4 +42,17 @@ public class RepoEntity extends AbstractOrmLiteEntity implements Serializable {
 
     @DatabaseField
     public String avatarUrl;
+
+    /**
+     * GitHub {@code updated_at}, ISO 8601 UTC: tells a delta sync whether the stored row is up to date.
+     */
+    @Mapped
+    @DatabaseField(columnName = COLUMN_UPDATED_AT)
+    public String updatedAt;
+
+    /**
+     * Login of the user whose repos have been synced, used to scope reads and deletes per account.
+     */
+    @DatabaseField(columnName = COLUMN_OWNER, index = true)
+    public String owner;
 }
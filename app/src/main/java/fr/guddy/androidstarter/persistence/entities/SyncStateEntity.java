@@ -0,0 +1,32 @@
+package fr.guddy.androidstarter.persistence.entities;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+import fr.guddy.androidstarter.persistence.dao.DAOSyncState;
+
+/**
+ * Progress of the delta sync of a collection, such as the repos of a user.
+ */
+@DatabaseTable(tableName = "SYNC_STATE", daoClass = DAOSyncState.class)
+public class SyncStateEntity extends AbstractOrmLiteEntity {
+    public static final String COLUMN_SYNC_KEY = "syncKey";
+
+    @DatabaseField(columnName = COLUMN_SYNC_KEY, unique = true, canBeNull = false)
+    public String syncKey;
+
+    /**
+     * Most recent {@code updated_at} stored by the last sync: older items have not changed since.
+     */
+    @DatabaseField
+    public String watermark;
+
+    /**
+     * When the last sync walked the whole collection, which is the only way to detect deleted items.
+     */
+    @DatabaseField
+    public long lastFullSyncAt;
+
+    @DatabaseField
+    public long updatedAt;
+}
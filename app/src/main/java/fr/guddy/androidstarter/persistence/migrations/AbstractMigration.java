@@ -0,0 +1,39 @@
+package fr.guddy.androidstarter.persistence.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+/**
+ * A step of the schema history, upgrading the database from the previous version to {@link #getVersion()} while keeping
+ * its rows.
+ * <p>
+ * A step only runs SQL written for its own version: the entity classes follow the latest schema, so creating a table
+ * from them would break the steps after it.
+ * </p>
+ */
+public abstract class AbstractMigration {
+    //region Fields
+    private final int miVersion;
+    //endregion
+
+    //region Constructor
+    protected AbstractMigration(final int piVersion) {
+        miVersion = piVersion;
+    }
+    //endregion
+
+    //region Visible API
+    /**
+     * @return the version this step upgrades to
+     */
+    public int getVersion() {
+        return miVersion;
+    }
+
+    /**
+     * Runs inside the upgrade transaction, which a failing step does not roll back: the steps run so far stay applied,
+     * and the upgrade falls back to dropping and recreating every table, losing the stored rows.
+     */
+    public abstract void migrate(@NonNull final SQLiteDatabase poDatabase);
+    //endregion
+}
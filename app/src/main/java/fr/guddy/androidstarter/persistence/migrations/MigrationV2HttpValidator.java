@@ -0,0 +1,18 @@
+package fr.guddy.androidstarter.persistence.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+/**
+ * Adds the HTTP_VALIDATOR table.
+ */
+public class MigrationV2HttpValidator extends AbstractMigration {
+    public MigrationV2HttpValidator() {
+        super(2);
+    }
+
+    @Override
+    public void migrate(@NonNull final SQLiteDatabase poDatabase) {
+        poDatabase.execSQL("CREATE TABLE `HTTP_VALIDATOR` (`requestKey` VARCHAR NOT NULL , `etag` VARCHAR , `lastModified` VARCHAR , `updatedAt` BIGINT , `_id` INTEGER PRIMARY KEY AUTOINCREMENT , UNIQUE (`requestKey`) )");
+    }
+}
@@ -0,0 +1,22 @@
+package fr.guddy.androidstarter.persistence.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+/**
+ * Adds the indexed owner column of REPO.
+ * <p>
+ * The repos stored before are left without owner: the next sync of their owner adopts them, matching them by GitHub id.
+ * </p>
+ */
+public class MigrationV3RepoOwner extends AbstractMigration {
+    public MigrationV3RepoOwner() {
+        super(3);
+    }
+
+    @Override
+    public void migrate(@NonNull final SQLiteDatabase poDatabase) {
+        poDatabase.execSQL("ALTER TABLE `REPO` ADD COLUMN `owner` VARCHAR");
+        poDatabase.execSQL("CREATE INDEX `REPO_owner_idx` ON `REPO` ( `owner` )");
+    }
+}
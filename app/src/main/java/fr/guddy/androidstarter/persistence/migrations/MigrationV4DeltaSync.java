@@ -0,0 +1,22 @@
+package fr.guddy.androidstarter.persistence.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+/**
+ * Adds the updatedAt column of REPO and the SYNC_STATE table of the delta sync.
+ * <p>
+ * Without a watermark, the first delta sync walks every page once, updating the stored repos in place.
+ * </p>
+ */
+public class MigrationV4DeltaSync extends AbstractMigration {
+    public MigrationV4DeltaSync() {
+        super(4);
+    }
+
+    @Override
+    public void migrate(@NonNull final SQLiteDatabase poDatabase) {
+        poDatabase.execSQL("ALTER TABLE `REPO` ADD COLUMN `updatedAt` VARCHAR");
+        poDatabase.execSQL("CREATE TABLE `SYNC_STATE` (`syncKey` VARCHAR NOT NULL , `watermark` VARCHAR , `lastFullSyncAt` BIGINT , `updatedAt` BIGINT , `_id` INTEGER PRIMARY KEY AUTOINCREMENT , UNIQUE (`syncKey`) )");
+    }
+}
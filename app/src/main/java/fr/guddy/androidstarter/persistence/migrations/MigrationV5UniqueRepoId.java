@@ -0,0 +1,23 @@
+package fr.guddy.androidstarter.persistence.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+/**
+ * Adds the unique index on the GitHub id of REPO.
+ * <p>
+ * Earlier versions could store a repo twice (once without owner, or under two owners after a transfer):
+ * only its most recently written row is kept.
+ * </p>
+ */
+public class MigrationV5UniqueRepoId extends AbstractMigration {
+    public MigrationV5UniqueRepoId() {
+        super(5);
+    }
+
+    @Override
+    public void migrate(@NonNull final SQLiteDatabase poDatabase) {
+        poDatabase.execSQL("DELETE FROM `REPO` WHERE `id` IS NOT NULL AND `_id` NOT IN (SELECT MAX(`_id`) FROM `REPO` WHERE `id` IS NOT NULL GROUP BY `id`)");
+        poDatabase.execSQL("CREATE UNIQUE INDEX `REPO_id_idx` ON `REPO` ( `id` )");
+    }
+}
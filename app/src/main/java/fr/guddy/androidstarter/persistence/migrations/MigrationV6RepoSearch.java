@@ -0,0 +1,28 @@
+package fr.guddy.androidstarter.persistence.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+/**
+ * Adds REPO_FTS, the full-text index over the name and description of REPO, and indexes the stored repos.
+ * <p>
+ * An external content FTS4 table: the text is only stored in REPO, the index being kept in sync by triggers on every
+ * write, whatever its path. The prefix indexes make short prefix queries, typed while searching, index seeks too.
+ * </p>
+ */
+public class MigrationV6RepoSearch extends AbstractMigration {
+    public MigrationV6RepoSearch() {
+        super(6);
+    }
+
+    @Override
+    public void migrate(@NonNull final SQLiteDatabase poDatabase) {
+        poDatabase.execSQL("CREATE VIRTUAL TABLE `REPO_FTS` USING fts4(content=\"REPO\", prefix=\"2,3\", `name`, `description`)");
+        // the old text is removed while the REPO row still holds it, the new text is added once written
+        poDatabase.execSQL("CREATE TRIGGER `REPO_FTS_before_update` BEFORE UPDATE OF `name`, `description` ON `REPO` BEGIN DELETE FROM `REPO_FTS` WHERE `docid` = old.`_id`; END");
+        poDatabase.execSQL("CREATE TRIGGER `REPO_FTS_before_delete` BEFORE DELETE ON `REPO` BEGIN DELETE FROM `REPO_FTS` WHERE `docid` = old.`_id`; END");
+        poDatabase.execSQL("CREATE TRIGGER `REPO_FTS_after_update` AFTER UPDATE OF `name`, `description` ON `REPO` BEGIN INSERT INTO `REPO_FTS` (`docid`, `name`, `description`) VALUES (new.`_id`, new.`name`, new.`description`); END");
+        poDatabase.execSQL("CREATE TRIGGER `REPO_FTS_after_insert` AFTER INSERT ON `REPO` BEGIN INSERT INTO `REPO_FTS` (`docid`, `name`, `description`) VALUES (new.`_id`, new.`name`, new.`description`); END");
+        poDatabase.execSQL("INSERT INTO `REPO_FTS` (`REPO_FTS`) VALUES ('rebuild')");
+    }
+}
@@ -0,0 +1,49 @@
+package fr.guddy.androidstarter.persistence.migrations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The schema history, one {@link AbstractMigration} per version after the first one.
+ * A schema change bumps the database version and appends its step here.
+ */
+public final class Migrations {
+    private static final List<AbstractMigration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+            new MigrationV2HttpValidator(),
+            new MigrationV3RepoOwner(),
+            new MigrationV4DeltaSync(),
+            new MigrationV5UniqueRepoId(),
+            new MigrationV6RepoSearch()
+    ));
+
+    //region Constructor
+    private Migrations() {
+    }
+    //endregion
+
+    //region Visible API
+    /**
+     * @return every step, by increasing version
+     */
+    public static List<AbstractMigration> all() {
+        return MIGRATIONS;
+    }
+
+    /**
+     * @return the steps upgrading from the old version to the new one, in order, or null if one of them is missing
+     */
+    public static List<AbstractMigration> between(final int piOldVersion, final int piNewVersion) {
+        final List<AbstractMigration> lloMigrations = new ArrayList<>();
+        int liVersion = piOldVersion;
+        for (final AbstractMigration loMigration : MIGRATIONS) {
+            if (loMigration.getVersion() == liVersion + 1 && liVersion < piNewVersion) {
+                lloMigrations.add(loMigration);
+                liVersion = loMigration.getVersion();
+            }
+        }
+        return liVersion == piNewVersion ? lloMigrations : null;
+    }
+    //endregion
+}
@@ -3,11 +3,58 @@ package fr.guddy.androidstarter.rest;
 import java.util.List;
 
 import fr.guddy.androidstarter.rest.dto.DTORepo;
+import fr.guddy.androidstarter.rest.dto.DTORepoProjection;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface GitHubService {
+    String SORT_UPDATED = "updated";
+    String DIRECTION_DESC = "desc";
+
+    /**
+     * One page of the repos of the user. The {@code Link} response header gives the last page number,
+     * see {@link fr.guddy.androidstarter.rest.pagination.PageLinks}: without {@code page}, GitHub only answers the first 30 repos.
+     *
+     * @param piPage         1-based page number
+     * @param piPerPage      page size, GitHub caps it to 100
+     * @param psCacheControl optional request {@code Cache-Control}, see {@link fr.guddy.androidstarter.rest.interceptors.CachePolicyInterceptor}
+     */
+    @GET("/users/{user}/repos")
+    Call<List<DTORepo>> listRepos(@Path("user") final String psUser,
+                                  @Query("page") final int piPage,
+                                  @Query("per_page") final int piPerPage,
+                                  @Header("Cache-Control") final String psCacheControl);
+
+    /**
+     * Same as {@link #listRepos(String, int, int, String)}, bound to {@link DTORepoProjection} and with an optional order.
+     *
+     * @param piPage         1-based page number
+     * @param piPerPage      page size, GitHub caps it to 100
+     * @param psSort         optional order: {@link #SORT_UPDATED}, {@code created}, {@code pushed} or {@code full_name} (default)
+     * @param psDirection    optional {@link #DIRECTION_DESC} or {@code asc}, defaults to {@code asc} except for {@code full_name}
+     * @param psCacheControl optional request {@code Cache-Control}, {@code no-cache} forces a full body
+     */
+    @GET("/users/{user}/repos")
+    Call<List<DTORepoProjection>> listRepos(@Path("user") final String psUser,
+                                            @Query("page") final int piPage,
+                                            @Query("per_page") final int piPerPage,
+                                            @Query("sort") final String psSort,
+                                            @Query("direction") final String psDirection,
+                                            @Header("Cache-Control") final String psCacheControl);
+
+    /**
+     * Same page as {@link #listRepos(String, int, int, String)}, but the body is not buffered nor converted:
+     * the caller is responsible for reading and closing it.
+     */
+    @Streaming
     @GET("/users/{user}/repos")
-    Call<List<DTORepo>> listRepos(@Path("user") final String psUser);
+    Call<ResponseBody> listReposAsStream(@Path("user") final String psUser,
+                                         @Query("page") final int piPage,
+                                         @Query("per_page") final int piPerPage,
+                                         @Header("Cache-Control") final String psCacheControl);
 }
@@ -0,0 +1,169 @@
+package fr.guddy.androidstarter.rest.circuit_breaker;
+
+import android.support.annotation.NonNull;
+
+import com.orhanobut.logger.Logger;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.rest.error_handling.RateLimitException;
+import fr.guddy.androidstarter.rest.error_handling.RetrofitException;
+
+/**
+ * Circuit breaker of one endpoint.
+ * <ul>
+ * <li>{@link State#CLOSED}: queries run, consecutive failures are counted</li>
+ * <li>{@link State#OPEN}: reached after {@code failureThreshold} consecutive failures, queries are rejected without any request</li>
+ * <li>{@link State#HALF_OPEN}: once the open period is over, a single query is let through to probe the endpoint.
+ * Its success closes the circuit, its failure opens it again for twice as long (up to {@code maxOpenMs})</li>
+ * </ul>
+ * Only failures telling that the endpoint is unhealthy are counted: IO errors and 5xx responses.
+ * A 4xx response or a rate limit says nothing about it.
+ */
+public class CircuitBreaker {
+    private static final String TAG = CircuitBreaker.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    //region Fields
+    public final String endpoint;
+    private final int mFailureThreshold;
+    private final long mInitialOpenMs;
+    private final long mMaxOpenMs;
+
+    private State mState = State.CLOSED;
+    private int mConsecutiveFailures;
+    private long mOpenMs;
+    private long mOpenUntilMs;
+    private boolean mProbeInFlight;
+    //endregion
+
+    //region Constructor
+    public CircuitBreaker(@NonNull final String psEndpoint, final int piFailureThreshold, final long plInitialOpenMs, final long plMaxOpenMs) {
+        endpoint = psEndpoint;
+        mFailureThreshold = Math.max(1, piFailureThreshold);
+        mInitialOpenMs = Math.max(0L, plInitialOpenMs);
+        mMaxOpenMs = Math.max(mInitialOpenMs, plMaxOpenMs);
+        mOpenMs = mInitialOpenMs;
+    }
+    //endregion
+
+    //region Visible API
+
+    /**
+     * To be called before running a query. If it returns true, the outcome must be reported
+     * through {@link #onSuccess()}, {@link #onFailure(Throwable)} or {@link #onIgnored()}.
+     *
+     * @return false if the query must be rejected
+     */
+    public synchronized boolean tryAcquire() {
+        switch (mState) {
+            case OPEN:
+                if (System.currentTimeMillis() < mOpenUntilMs) {
+                    return false;
+                }
+                setState(State.HALF_OPEN);
+                mProbeInFlight = true;
+                return true;
+            case HALF_OPEN:
+                if (mProbeInFlight) {
+                    return false;
+                }
+                mProbeInFlight = true;
+                return true;
+            case CLOSED:
+            default:
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        mConsecutiveFailures = 0;
+        mOpenMs = mInitialOpenMs;
+        mProbeInFlight = false;
+        setState(State.CLOSED);
+    }
+
+    public synchronized void onFailure(@NonNull final Throwable poThrowable) {
+        if (!isEndpointFailure(poThrowable)) {
+            onIgnored();
+            return;
+        }
+        mProbeInFlight = false;
+        if (mState == State.HALF_OPEN) {
+            // the endpoint is still down: wait longer before the next probe
+            mOpenMs = Math.min(mMaxOpenMs, mOpenMs * 2L);
+            open();
+        } else if (++mConsecutiveFailures >= mFailureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * For an outcome telling nothing about the endpoint health, such as a cancellation.
+     */
+    public synchronized void onIgnored() {
+        mProbeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return mState;
+    }
+
+    /**
+     * @return how long the circuit stays open, 0 if a query can run now
+     */
+    public synchronized long getRetryAfterMs() {
+        return mState == State.OPEN ? Math.max(0L, mOpenUntilMs - System.currentTimeMillis()) : 0L;
+    }
+    //endregion
+
+    //region Specific job
+    private void open() {
+        mOpenUntilMs = System.currentTimeMillis() + mOpenMs;
+        setState(State.OPEN);
+    }
+
+    private void setState(@NonNull final State poState) {
+        if (mState != poState && BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("%s: %s -> %s", endpoint, mState, poState);
+        }
+        mState = poState;
+    }
+
+    private static boolean isEndpointFailure(@NonNull final Throwable poThrowable) {
+        Throwable loCause = poThrowable;
+        while (loCause instanceof ExecutionException && loCause.getCause() != null) {
+            loCause = loCause.getCause();
+        }
+        if (loCause instanceof RateLimitException || loCause instanceof CancellationException) {
+            return false;
+        }
+        if (loCause instanceof IOException) {
+            return true;
+        }
+        if (loCause instanceof RetrofitException) {
+            final RetrofitException loException = (RetrofitException) loCause;
+            switch (loException.getKind()) {
+                case NETWORK:
+                    return true;
+                case HTTP:
+                    return loException.getResponse() != null && loException.getResponse().code() >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+                case UNEXPECTED:
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+    //endregion
+}
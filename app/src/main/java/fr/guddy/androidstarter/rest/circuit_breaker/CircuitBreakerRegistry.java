@@ -0,0 +1,46 @@
+package fr.guddy.androidstarter.rest.circuit_breaker;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds one {@link CircuitBreaker} per endpoint, created on first use.
+ */
+public class CircuitBreakerRegistry {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_INITIAL_OPEN_MS = 30000L;
+    public static final long DEFAULT_MAX_OPEN_MS = 300000L;
+
+    //region Fields
+    private final Map<String, CircuitBreaker> mCircuitBreakers = new HashMap<>();
+    private final int mFailureThreshold;
+    private final long mInitialOpenMs;
+    private final long mMaxOpenMs;
+    //endregion
+
+    //region Constructors
+    public CircuitBreakerRegistry() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_INITIAL_OPEN_MS, DEFAULT_MAX_OPEN_MS);
+    }
+
+    public CircuitBreakerRegistry(final int piFailureThreshold, final long plInitialOpenMs, final long plMaxOpenMs) {
+        mFailureThreshold = piFailureThreshold;
+        mInitialOpenMs = plInitialOpenMs;
+        mMaxOpenMs = plMaxOpenMs;
+    }
+    //endregion
+
+    //region Visible API
+    @NonNull
+    public synchronized CircuitBreaker get(@NonNull final String psEndpoint) {
+        CircuitBreaker loCircuitBreaker = mCircuitBreakers.get(psEndpoint);
+        if (loCircuitBreaker == null) {
+            loCircuitBreaker = new CircuitBreaker(psEndpoint, mFailureThreshold, mInitialOpenMs, mMaxOpenMs);
+            mCircuitBreakers.put(psEndpoint, loCircuitBreaker);
+        }
+        return loCircuitBreaker;
+    }
+    //endregion
+}
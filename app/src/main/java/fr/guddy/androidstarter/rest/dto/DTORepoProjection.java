@@ -0,0 +1,96 @@
+package fr.guddy.androidstarter.rest.dto;
+
+import android.support.annotation.NonNull;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+
+/**
+ * Slim view of {@link DTORepo}, limited to the fields stored in the REPO table.
+ * <p>
+ * It is bound by a hand-written {@link Deserializer} instead of reflective bean binding:
+ * fields are matched by name in a switch, every other value (including nested objects) is skipped.
+ * </p>
+ */
+@JsonDeserialize(using = DTORepoProjection.Deserializer.class)
+public class DTORepoProjection {
+    public Integer id;
+    public String name;
+    public String description;
+    public String url;
+    /**
+     * {@code owner.avatar_url}
+     */
+    public String avatarUrl;
+    /**
+     * ISO 8601 UTC timestamp, so that two values compare as strings
+     */
+    public String updatedAt;
+
+    //region Deserializer
+    public static final class Deserializer extends JsonDeserializer<DTORepoProjection> {
+        @Override
+        public DTORepoProjection deserialize(final JsonParser poParser, final DeserializationContext poContext) throws IOException {
+            return read(poParser);
+        }
+
+        /**
+         * Reads one repo object.
+         *
+         * @param poParser positioned on the {@link JsonToken#START_OBJECT} of the repo, left on its {@link JsonToken#END_OBJECT}
+         */
+        public static DTORepoProjection read(@NonNull final JsonParser poParser) throws IOException {
+            final DTORepoProjection loRepo = new DTORepoProjection();
+            while (poParser.nextToken() == JsonToken.FIELD_NAME) {
+                final String lsField = poParser.getCurrentName();
+                final JsonToken loToken = poParser.nextToken();
+                switch (lsField) {
+                    case "id":
+                        loRepo.id = loToken == JsonToken.VALUE_NULL ? null : poParser.getIntValue();
+                        break;
+                    case "name":
+                        loRepo.name = poParser.getValueAsString();
+                        break;
+                    case "description":
+                        loRepo.description = poParser.getValueAsString();
+                        break;
+                    case "url":
+                        loRepo.url = poParser.getValueAsString();
+                        break;
+                    case "updated_at":
+                        loRepo.updatedAt = poParser.getValueAsString();
+                        break;
+                    case "owner":
+                        if (loToken == JsonToken.START_OBJECT) {
+                            loRepo.avatarUrl = readOwnerAvatarUrl(poParser);
+                        }
+                        break;
+                    default:
+                        poParser.skipChildren();
+                        break;
+                }
+            }
+            return loRepo;
+        }
+
+        private static String readOwnerAvatarUrl(@NonNull final JsonParser poParser) throws IOException {
+            String lsAvatarUrl = null;
+            while (poParser.nextToken() == JsonToken.FIELD_NAME) {
+                final String lsField = poParser.getCurrentName();
+                poParser.nextToken();
+                if ("avatar_url".equals(lsField)) {
+                    lsAvatarUrl = poParser.getValueAsString();
+                } else {
+                    poParser.skipChildren();
+                }
+            }
+            return lsAvatarUrl;
+        }
+    }
+    //endregion
+}
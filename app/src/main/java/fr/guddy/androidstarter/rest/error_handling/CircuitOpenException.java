@@ -0,0 +1,21 @@
+package fr.guddy.androidstarter.rest.error_handling;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Thrown instead of running a query whose endpoint circuit is open.
+ * It is never retried: the circuit breaker decides when the endpoint is tried again.
+ */
+public class CircuitOpenException extends RuntimeException {
+    public final String endpoint;
+    /**
+     * How long the circuit stays open.
+     */
+    public final long retryAfterMs;
+
+    public CircuitOpenException(@NonNull final String psEndpoint, final long plRetryAfterMs) {
+        super("Circuit open for " + psEndpoint + ", retry in " + plRetryAfterMs + " ms");
+        endpoint = psEndpoint;
+        retryAfterMs = plRetryAfterMs;
+    }
+}
@@ -0,0 +1,17 @@
+package fr.guddy.androidstarter.rest.error_handling;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Thrown for a request restricted to the cache ({@code only-if-cached}, such as offline) which found nothing usable:
+ * OkHttp answers it with a {@code 504} of its own, without any network response.
+ * As nothing reached the server, it is never retried nor counted as a failure of the endpoint.
+ */
+public class NotCachedException extends RuntimeException {
+    public final String url;
+
+    public NotCachedException(@NonNull final String psUrl) {
+        super("Not cached: " + psUrl);
+        url = psUrl;
+    }
+}
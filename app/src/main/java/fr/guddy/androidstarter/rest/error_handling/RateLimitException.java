@@ -0,0 +1,19 @@
+package fr.guddy.androidstarter.rest.error_handling;
+
+import java.io.IOException;
+
+/**
+ * Thrown before a request is sent, when the client-side rate-limit budget does not allow it soon enough.
+ * It is an {@link IOException} so that it goes through the regular OkHttp/Retrofit failure path.
+ */
+public class RateLimitException extends IOException {
+    /**
+     * Delay after which the request is expected to be allowed.
+     */
+    public final long retryAfterMs;
+
+    public RateLimitException(final long plRetryAfterMs) {
+        super("Rate limit budget exhausted, retry in " + plRetryAfterMs + " ms");
+        retryAfterMs = plRetryAfterMs;
+    }
+}
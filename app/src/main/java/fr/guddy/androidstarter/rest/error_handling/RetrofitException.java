@@ -18,6 +18,15 @@ public class RetrofitException extends RuntimeException {
         return new RetrofitException(lsMessage, psUrl, poResponse, Kind.HTTP, null, poRetrofit);
     }
 
+    /**
+     * Same as {@link #httpError(String, Response, Retrofit)}, for responses read without access to the {@link Retrofit} instance:
+     * {@link #getErrorBodyAs(Class)} then returns null.
+     */
+    public static RetrofitException httpError(@NonNull final Response poResponse) {
+        final String lsMessage = poResponse.code() + " " + poResponse.message();
+        return new RetrofitException(lsMessage, poResponse.raw().request().url().toString(), poResponse, Kind.HTTP, null, null);
+    }
+
     public static RetrofitException networkError(@NonNull final IOException poException) {
         return new RetrofitException(poException.getMessage(), null, null, Kind.NETWORK, poException, null);
     }
@@ -0,0 +1,163 @@
+package fr.guddy.androidstarter.rest.interceptors;
+
+import android.support.annotation.NonNull;
+
+import com.novoda.merlin.MerlinsBeard;
+import com.orhanobut.logger.Logger;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.IEnvironment;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSource;
+
+/**
+ * Application interceptor choosing how GET requests use the HTTP cache, when the caller did not set a {@code Cache-Control}.
+ * <ul>
+ * <li>offline: the cached response is served, even if stale by up to {@link IEnvironment#getCacheMaxStaleOfflineSeconds()}</li>
+ * <li>online: stale-while-revalidate, a cached response stale by up to {@link IEnvironment#getStaleWhileRevalidateSeconds()}
+ * is served immediately and revalidated in background, so that the next request gets the fresh one</li>
+ * </ul>
+ * Background revalidations go through the client given to {@link #bindClient(OkHttpClient)}. They only update the HTTP cache:
+ * queries storing the response, such as {@link fr.guddy.androidstarter.rest.queries.QueryGetRepos}, set their own
+ * {@code Cache-Control} so that they never get a stale response from here.
+ */
+public class CachePolicyInterceptor implements Interceptor {
+    private static final String TAG = CachePolicyInterceptor.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String HEADER_WARNING = "Warning";
+    /**
+     * Added by OkHttp to cached responses served while stale.
+     */
+    private static final String WARNING_STALE = "110";
+    private static final int HTTP_GATEWAY_TIMEOUT = 504;
+
+    private static final CacheControl REVALIDATE = new CacheControl.Builder().maxAge(0, TimeUnit.SECONDS).build();
+
+    //region Fields
+    private final MerlinsBeard mMerlinsBeard;
+    private final IEnvironment mEnvironment;
+    private final Set<String> mRevalidatingUrls = new HashSet<>();
+    private volatile OkHttpClient mClient;
+    //endregion
+
+    //region Constructor
+    public CachePolicyInterceptor(@NonNull final MerlinsBeard poMerlinsBeard, @NonNull final IEnvironment poEnvironment) {
+        mMerlinsBeard = poMerlinsBeard;
+        mEnvironment = poEnvironment;
+    }
+    //endregion
+
+    //region Visible API
+    public void bindClient(@NonNull final OkHttpClient poClient) {
+        mClient = poClient;
+    }
+    //endregion
+
+    //region Interceptor
+    @Override
+    public Response intercept(@NonNull final Chain poChain) throws IOException {
+        final Request loRequest = poChain.request();
+        if (!"GET".equals(loRequest.method()) || loRequest.header(HEADER_CACHE_CONTROL) != null) {
+            return poChain.proceed(loRequest);
+        }
+
+        final int liMaxStaleOfflineSeconds = mEnvironment.getCacheMaxStaleOfflineSeconds();
+        if (liMaxStaleOfflineSeconds > 0 && !mMerlinsBeard.isConnected()) {
+            final CacheControl loOffline = new CacheControl.Builder()
+                    .onlyIfCached()
+                    .maxStale(liMaxStaleOfflineSeconds, TimeUnit.SECONDS)
+                    .build();
+            // a 504 is returned if nothing usable is cached, which queries report as NETWORK_UNREACHABLE
+            return poChain.proceed(loRequest.newBuilder().cacheControl(loOffline).build());
+        }
+
+        final int liStaleWhileRevalidateSeconds = mEnvironment.getStaleWhileRevalidateSeconds();
+        if (liStaleWhileRevalidateSeconds <= 0 || mClient == null) {
+            return poChain.proceed(loRequest);
+        }
+
+        final CacheControl loCachedOnly = new CacheControl.Builder()
+                .onlyIfCached()
+                .maxStale(liStaleWhileRevalidateSeconds, TimeUnit.SECONDS)
+                .build();
+        final Response loCachedResponse = poChain.proceed(loRequest.newBuilder().cacheControl(loCachedOnly).build());
+        if (loCachedResponse.code() == HTTP_GATEWAY_TIMEOUT) {
+            // not cached, or too stale
+            loCachedResponse.close();
+            return poChain.proceed(loRequest);
+        }
+        if (isStale(loCachedResponse)) {
+            revalidateInBackground(loRequest);
+        }
+        return loCachedResponse;
+    }
+    //endregion
+
+    //region Specific job
+    private static boolean isStale(@NonNull final Response poResponse) {
+        for (final String lsWarning : poResponse.headers(HEADER_WARNING)) {
+            if (lsWarning.startsWith(WARNING_STALE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void revalidateInBackground(@NonNull final Request poRequest) {
+        final String lsUrl = poRequest.url().toString();
+        synchronized (mRevalidatingUrls) {
+            if (!mRevalidatingUrls.add(lsUrl)) {
+                return;
+            }
+        }
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("revalidating %s", lsUrl);
+        }
+        // max-age=0 lets OkHttp send a conditional request with the cached validators
+        mClient.newCall(poRequest.newBuilder().cacheControl(REVALIDATE).build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(final Call poCall, final IOException poException) {
+                if (BuildConfig.DEBUG && DEBUG) {
+                    Logger.t(TAG).e(poException, "");
+                }
+                done();
+            }
+
+            @Override
+            public void onResponse(final Call poCall, final Response poResponse) throws IOException {
+                try {
+                    // a new body is only committed to the cache once it has been read entirely
+                    final BufferedSource loSource = poResponse.body().source();
+                    final Buffer loBuffer = new Buffer();
+                    while (loSource.read(loBuffer, 8192L) != -1L) {
+                        loBuffer.clear();
+                    }
+                } finally {
+                    poResponse.close();
+                    done();
+                }
+            }
+
+            private void done() {
+                synchronized (mRevalidatingUrls) {
+                    mRevalidatingUrls.remove(lsUrl);
+                }
+            }
+        });
+    }
+    //endregion
+}
@@ -0,0 +1,123 @@
+package fr.guddy.androidstarter.rest.interceptors;
+
+import android.support.annotation.NonNull;
+
+import com.orhanobut.logger.Logger;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.sql.SQLException;
+
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.persistence.dao.DAOHttpValidator;
+import fr.guddy.androidstarter.persistence.entities.HttpValidatorEntity;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor which sends the validators kept in the database through {@link #save(Response)}
+ * back as {@code If-None-Match}/{@code If-Modified-Since}, when OkHttp's cache has no entry for the request anymore.
+ * <p>
+ * Validators are not saved as soon as the response arrives, but by the query once it has stored the body:
+ * otherwise a sync failing or cancelled before its writes would leave validators for data missing from the database,
+ * and the next request would get a {@code 304} forever.
+ * </p>
+ * <p>
+ * As a network interceptor, it runs after the cache: when the cache still holds the response, it has
+ * already added its own validators and this interceptor leaves the request untouched. Otherwise, the
+ * server may answer {@code 304} without any body, meaning the previously stored data is still valid.
+ * </p>
+ * <p>
+ * A request with {@code Cache-Control: no-cache} is never made conditional, so that callers can force a
+ * full body.
+ * </p>
+ */
+public class ConditionalRequestInterceptor implements Interceptor {
+    private static final String TAG = ConditionalRequestInterceptor.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    private static final String METHOD_GET = "GET";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    //region Fields
+    private final DAOHttpValidator mDaoHttpValidator;
+    //endregion
+
+    //region Constructor
+    public ConditionalRequestInterceptor(@NonNull final DAOHttpValidator poDaoHttpValidator) {
+        mDaoHttpValidator = poDaoHttpValidator;
+    }
+    //endregion
+
+    //region Interceptor
+    @Override
+    public Response intercept(final Chain poChain) throws IOException {
+        final Request loRequest = poChain.request();
+        if (!METHOD_GET.equals(loRequest.method())) {
+            return poChain.proceed(loRequest);
+        }
+
+        return poChain.proceed(addValidators(loRequest, loRequest.url().toString()));
+    }
+    //endregion
+
+    //region Visible API
+
+    /**
+     * Keeps the validators of a successful GET response, to be called once its body has been stored.
+     */
+    public void save(@NonNull final Response poResponse) {
+        if (!METHOD_GET.equals(poResponse.request().method()) || poResponse.code() != HttpURLConnection.HTTP_OK) {
+            return;
+        }
+        final String lsETag = poResponse.header(HEADER_ETAG);
+        final String lsLastModified = poResponse.header(HEADER_LAST_MODIFIED);
+        if (lsETag == null && lsLastModified == null) {
+            return;
+        }
+        try {
+            mDaoHttpValidator.save(poResponse.request().url().toString(), lsETag, lsLastModified);
+        } catch (final SQLException loException) {
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).e(loException, "");
+            }
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private Request addValidators(@NonNull final Request poRequest, @NonNull final String psRequestKey) {
+        if (poRequest.header(HEADER_IF_NONE_MATCH) != null
+                || poRequest.header(HEADER_IF_MODIFIED_SINCE) != null
+                || poRequest.cacheControl().noCache()) {
+            return poRequest;
+        }
+
+        final HttpValidatorEntity loValidator;
+        try {
+            loValidator = mDaoHttpValidator.findByRequestKey(psRequestKey);
+        } catch (final SQLException loException) {
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).e(loException, "");
+            }
+            return poRequest;
+        }
+        if (loValidator == null) {
+            return poRequest;
+        }
+
+        final Request.Builder loBuilder = poRequest.newBuilder();
+        if (loValidator.etag != null) {
+            loBuilder.header(HEADER_IF_NONE_MATCH, loValidator.etag);
+        }
+        if (loValidator.lastModified != null) {
+            loBuilder.header(HEADER_IF_MODIFIED_SINCE, loValidator.lastModified);
+        }
+        return loBuilder.build();
+    }
+    //endregion
+}
@@ -0,0 +1,140 @@
+package fr.guddy.androidstarter.rest.interceptors;
+
+import android.support.annotation.NonNull;
+
+import com.orhanobut.logger.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.rest.queries.AbstractQuery;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Carries the {@link AbstractQuery.Priority} of the running query down to the network layer, to be added as an
+ * application interceptor (so that a waiting request holds no connection).
+ * <p>
+ * Queries execute their calls synchronously, which OkHttp's {@link okhttp3.Dispatcher} does not limit nor order:
+ * this gate is where requests compete. At most {@code maxConcurrentRequests} requests are in flight:
+ * </p>
+ * <ul>
+ * <li>{@link AbstractQuery.Priority#HIGH} requests can use every slot, one of which is kept for them</li>
+ * <li>{@link AbstractQuery.Priority#MEDIUM} requests (and requests out of any query) and {@link AbstractQuery.Priority#LOW}
+ * requests can use the others, so that a batch sync still runs its queries in parallel</li>
+ * </ul>
+ * A freed slot goes to the highest priority waiting, so a user-visible refresh goes ahead of queued background syncs.
+ */
+public class PriorityGateInterceptor implements Interceptor {
+    private static final String TAG = PriorityGateInterceptor.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    private static final int HIGH_PRIORITY_RESERVED_SLOTS = 1;
+    /**
+     * Waiters wake up at least this often to notice a cancelled call.
+     */
+    private static final long CANCEL_CHECK_INTERVAL_MS = 250L;
+
+    //region Fields
+    private final int mMaxConcurrentRequests;
+    private final int[] mRunning = new int[AbstractQuery.Priority.values().length];
+    private final int[] mWaiting = new int[AbstractQuery.Priority.values().length];
+    private int mRunningTotal;
+    //endregion
+
+    //region Constructor
+    public PriorityGateInterceptor(final int piMaxConcurrentRequests) {
+        // HIGH requests need a slot of their own
+        mMaxConcurrentRequests = Math.max(HIGH_PRIORITY_RESERVED_SLOTS + 1, piMaxConcurrentRequests);
+    }
+    //endregion
+
+    //region Interceptor
+    @Override
+    public Response intercept(@NonNull final Chain poChain) throws IOException {
+        final AbstractQuery.Priority loPriority = priorityOf(AbstractQuery.getCurrentPriority());
+        acquire(poChain, loPriority);
+        try {
+            return poChain.proceed(poChain.request());
+        } finally {
+            release(loPriority);
+        }
+    }
+    //endregion
+
+    //region Visible API
+
+    /**
+     * @return the requests currently in flight with the given priority
+     */
+    public synchronized int getRunningCount(@NonNull final AbstractQuery.Priority poPriority) {
+        return mRunning[poPriority.ordinal()];
+    }
+
+    /**
+     * @return the requests currently waiting for a slot with the given priority
+     */
+    public synchronized int getWaitingCount(@NonNull final AbstractQuery.Priority poPriority) {
+        return mWaiting[poPriority.ordinal()];
+    }
+    //endregion
+
+    //region Specific job
+    private synchronized void acquire(@NonNull final Chain poChain, @NonNull final AbstractQuery.Priority poPriority) throws IOException {
+        final int liIndex = poPriority.ordinal();
+        if (canRun(poPriority)) {
+            ++mRunning[liIndex];
+            ++mRunningTotal;
+            return;
+        }
+
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("%s request waiting, running = %d/%d", poPriority, mRunningTotal, mMaxConcurrentRequests);
+        }
+        ++mWaiting[liIndex];
+        try {
+            while (!canRun(poPriority)) {
+                if (poChain.call().isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                wait(CANCEL_CHECK_INTERVAL_MS);
+            }
+        } catch (final InterruptedException loException) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request slot");
+        } finally {
+            --mWaiting[liIndex];
+        }
+        ++mRunning[liIndex];
+        ++mRunningTotal;
+    }
+
+    private synchronized void release(@NonNull final AbstractQuery.Priority poPriority) {
+        --mRunning[poPriority.ordinal()];
+        --mRunningTotal;
+        notifyAll();
+    }
+
+    private boolean canRun(@NonNull final AbstractQuery.Priority poPriority) {
+        // no overtaking of a waiting request with a higher priority
+        for (int liIndex = poPriority.ordinal() + 1; liIndex < mWaiting.length; liIndex++) {
+            if (mWaiting[liIndex] > 0) {
+                return false;
+            }
+        }
+        switch (poPriority) {
+            case HIGH:
+                return mRunningTotal < mMaxConcurrentRequests;
+            case LOW:
+            case MEDIUM:
+            default:
+                return mRunningTotal < mMaxConcurrentRequests - HIGH_PRIORITY_RESERVED_SLOTS;
+        }
+    }
+
+    private static AbstractQuery.Priority priorityOf(final AbstractQuery.Priority poPriority) {
+        return poPriority == null ? AbstractQuery.Priority.MEDIUM : poPriority;
+    }
+    //endregion
+}
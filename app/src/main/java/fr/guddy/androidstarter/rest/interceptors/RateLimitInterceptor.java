@@ -0,0 +1,211 @@
+package fr.guddy.androidstarter.rest.interceptors;
+
+import android.support.annotation.NonNull;
+
+import com.orhanobut.logger.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.rest.error_handling.RateLimitException;
+import fr.guddy.androidstarter.rest.queries.AbstractQuery;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Client-side governor of the GitHub rate limit, to be added as an application interceptor before
+ * {@link PriorityGateInterceptor}, so that a paced request holds neither a request slot nor a connection.
+ * Its {@link #getNetworkInterceptor() network interceptor} has to be added too.
+ * <p>
+ * The budget is learnt from the {@code X-RateLimit-*} headers of network responses, by the network interceptor.
+ * Responses served by the cache give back what their request took, as they did not use the budget.
+ * Requests are paced by a token bucket
+ * refilled at {@code remaining / time until reset}, so that the budget lasts the whole window.
+ * The priority of the {@link AbstractQuery} running on the calling thread decides who waits:
+ * </p>
+ * <ul>
+ * <li>{@link AbstractQuery.Priority#HIGH} requests are never paced</li>
+ * <li>{@link AbstractQuery.Priority#MEDIUM} requests (and requests out of any query) are paced</li>
+ * <li>{@link AbstractQuery.Priority#LOW} requests are paced, and held until the reset once the budget falls under the reserve</li>
+ * </ul>
+ * A request which would wait more than {@link #MAX_WAIT_MS} fails with a {@link RateLimitException} instead,
+ * so that the query can be rescheduled rather than holding a job consumer.
+ */
+public class RateLimitInterceptor implements Interceptor {
+    private static final String TAG = RateLimitInterceptor.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    private static final String HEADER_LIMIT = "X-RateLimit-Limit";
+    private static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+    private static final String HEADER_RESET = "X-RateLimit-Reset";
+
+    public static final long MAX_WAIT_MS = 30000L;
+    private static final double BUCKET_CAPACITY = 10d;
+    private static final double LOW_PRIORITY_RESERVE_RATIO = 0.2d;
+
+    //region Fields
+    private final Interceptor mNetworkInterceptor = (final Chain poChain) -> {
+        final Response loResponse = poChain.proceed(poChain.request());
+        update(loResponse);
+        return loResponse;
+    };
+    private int mLimit = -1;
+    private int mRemaining = -1;
+    private long mResetAtMs;
+    private double mTokens = BUCKET_CAPACITY;
+    private long mLastRefillMs;
+    //endregion
+
+    //region Interceptor
+    @Override
+    public Response intercept(@NonNull final Chain poChain) throws IOException {
+        final Request loRequest = poChain.request();
+        if (loRequest.cacheControl().onlyIfCached()) {
+            return poChain.proceed(loRequest);
+        }
+        final long llChargedWindow = acquire(AbstractQuery.getCurrentPriority());
+        final Response loResponse = poChain.proceed(loRequest);
+        if (loResponse.networkResponse() == null) {
+            refund(llChargedWindow);
+        }
+        return loResponse;
+    }
+    //endregion
+
+    //region Visible API
+
+    /**
+     * @return the interceptor learning the budget from network responses, to be added with {@link okhttp3.OkHttpClient.Builder#addNetworkInterceptor(Interceptor)}
+     */
+    public Interceptor getNetworkInterceptor() {
+        return mNetworkInterceptor;
+    }
+
+    /**
+     * @return the requests left in the current window, or -1 while no response told it
+     */
+    public synchronized int getRemaining() {
+        return isWindowKnown() ? mRemaining : -1;
+    }
+
+    /**
+     * @return the requests allowed per window, or -1 while no response told it
+     */
+    public synchronized int getLimit() {
+        return mLimit;
+    }
+
+    /**
+     * @return when the current window ends (epoch milliseconds), or 0 while no response told it
+     */
+    public synchronized long getResetAtMillis() {
+        return isWindowKnown() ? mResetAtMs : 0L;
+    }
+    //endregion
+
+    //region Specific job
+    /**
+     * @return the window the request has been charged to, 0 if none
+     */
+    private long acquire(final AbstractQuery.Priority poPriority) throws IOException {
+        while (true) {
+            final long llWaitMs;
+            final int liRemaining;
+            final long llWindow;
+            synchronized (this) {
+                llWindow = isWindowKnown() ? mResetAtMs : 0L;
+                llWaitMs = computeWaitMs(poPriority);
+                liRemaining = mRemaining;
+            }
+            if (llWaitMs <= 0L) {
+                return llWindow;
+            }
+            if (llWaitMs > MAX_WAIT_MS) {
+                if (BuildConfig.DEBUG && DEBUG) {
+                    Logger.t(TAG).d("%s request deferred by %d ms, remaining = %d", poPriority, llWaitMs, liRemaining);
+                }
+                throw new RateLimitException(llWaitMs);
+            }
+            try {
+                Thread.sleep(llWaitMs);
+            } catch (final InterruptedException loException) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit budget");
+            }
+        }
+    }
+
+    /**
+     * Takes a token and returns 0 if the request can go now, otherwise returns the time to wait.
+     */
+    private long computeWaitMs(final AbstractQuery.Priority poPriority) {
+        if (!isWindowKnown()) {
+            return 0L;
+        }
+        final long llNow = System.currentTimeMillis();
+        final long llUntilResetMs = mResetAtMs - llNow;
+        if (mRemaining <= 0) {
+            return llUntilResetMs;
+        }
+        if (poPriority == AbstractQuery.Priority.HIGH) {
+            --mRemaining;
+            return 0L;
+        }
+        if (poPriority == AbstractQuery.Priority.LOW && mRemaining <= Math.max(1, (int) (mLimit * LOW_PRIORITY_RESERVE_RATIO))) {
+            return llUntilResetMs;
+        }
+
+        final double ldTokensPerMs = (double) mRemaining / llUntilResetMs;
+        mTokens = Math.min(BUCKET_CAPACITY, mTokens + (llNow - mLastRefillMs) * ldTokensPerMs);
+        mLastRefillMs = llNow;
+        if (mTokens >= 1d) {
+            mTokens -= 1d;
+            --mRemaining;
+            return 0L;
+        }
+        return (long) Math.ceil((1d - mTokens) / ldTokensPerMs);
+    }
+
+    private synchronized void refund(final long plWindow) {
+        if (plWindow != 0L && plWindow == mResetAtMs && isWindowKnown()) {
+            ++mRemaining;
+        }
+    }
+
+    private synchronized void update(@NonNull final Response poResponse) {
+        final String lsRemaining = poResponse.header(HEADER_REMAINING);
+        final String lsReset = poResponse.header(HEADER_RESET);
+        if (lsRemaining == null || lsReset == null) {
+            return;
+        }
+        try {
+            final long llResetAtMs = Long.parseLong(lsReset.trim()) * 1000L;
+            final int liRemaining = Integer.parseInt(lsRemaining.trim());
+            if (llResetAtMs != mResetAtMs) {
+                // new window: start with a full bucket
+                mTokens = BUCKET_CAPACITY;
+                mLastRefillMs = System.currentTimeMillis();
+                mRemaining = liRemaining;
+            } else {
+                // responses may come back out of order, and requests sent since then are already counted
+                mRemaining = Math.min(mRemaining, liRemaining);
+            }
+            mResetAtMs = llResetAtMs;
+            final String lsLimit = poResponse.header(HEADER_LIMIT);
+            if (lsLimit != null) {
+                mLimit = Integer.parseInt(lsLimit.trim());
+            }
+        } catch (final NumberFormatException loException) {
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).e(loException, "");
+            }
+        }
+    }
+
+    private boolean isWindowKnown() {
+        return mRemaining >= 0 && System.currentTimeMillis() < mResetAtMs;
+    }
+    //endregion
+}
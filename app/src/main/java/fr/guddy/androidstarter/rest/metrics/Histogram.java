@@ -0,0 +1,86 @@
+package fr.guddy.androidstarter.rest.metrics;
+
+import java.util.Locale;
+
+/**
+ * Fixed-bucket histogram of durations in milliseconds.
+ * Recording is O(1) and allocation-free; percentiles are approximated by the upper bound of their bucket.
+ */
+public final class Histogram {
+    private static final long[] BUCKET_UPPER_BOUNDS_MS = {1L, 2L, 5L, 10L, 25L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L, Long.MAX_VALUE};
+
+    //region Fields
+    private final long[] mBucketCounts = new long[BUCKET_UPPER_BOUNDS_MS.length];
+    private long mCount;
+    private long mSumMs;
+    private long mMinMs = Long.MAX_VALUE;
+    private long mMaxMs;
+    //endregion
+
+    //region Visible API
+    public synchronized void record(final long plDurationMs) {
+        final long llDurationMs = Math.max(0L, plDurationMs);
+        int liBucket = 0;
+        while (llDurationMs > BUCKET_UPPER_BOUNDS_MS[liBucket]) {
+            ++liBucket;
+        }
+        ++mBucketCounts[liBucket];
+        ++mCount;
+        mSumMs += llDurationMs;
+        mMinMs = Math.min(mMinMs, llDurationMs);
+        mMaxMs = Math.max(mMaxMs, llDurationMs);
+    }
+
+    public synchronized long getCount() {
+        return mCount;
+    }
+
+    public synchronized long getMeanMs() {
+        return mCount == 0L ? 0L : mSumMs / mCount;
+    }
+
+    public synchronized long getMaxMs() {
+        return mMaxMs;
+    }
+
+    /**
+     * @param pdPercentile in ]0, 1]
+     * @return the upper bound of the bucket holding this percentile, capped by the max recorded value
+     */
+    public synchronized long getPercentileMs(final double pdPercentile) {
+        if (mCount == 0L) {
+            return 0L;
+        }
+        final long llRank = (long) Math.ceil(pdPercentile * mCount);
+        long llCumulated = 0L;
+        for (int liBucket = 0; liBucket < mBucketCounts.length; liBucket++) {
+            llCumulated += mBucketCounts[liBucket];
+            if (llCumulated >= llRank) {
+                return Math.min(BUCKET_UPPER_BOUNDS_MS[liBucket], mMaxMs);
+            }
+        }
+        return mMaxMs;
+    }
+
+    public synchronized void reset() {
+        for (int liBucket = 0; liBucket < mBucketCounts.length; liBucket++) {
+            mBucketCounts[liBucket] = 0L;
+        }
+        mCount = 0L;
+        mSumMs = 0L;
+        mMinMs = Long.MAX_VALUE;
+        mMaxMs = 0L;
+    }
+
+    /**
+     * @return one line: count, min, mean, p50, p90, p99 and max
+     */
+    public synchronized String summary() {
+        if (mCount == 0L) {
+            return "n=0";
+        }
+        return String.format(Locale.US, "n=%d min=%d mean=%d p50=%d p90=%d p99=%d max=%d",
+                mCount, mMinMs, getMeanMs(), getPercentileMs(0.5d), getPercentileMs(0.9d), getPercentileMs(0.99d), mMaxMs);
+    }
+    //endregion
+}
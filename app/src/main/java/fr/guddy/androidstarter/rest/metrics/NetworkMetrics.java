@@ -0,0 +1,103 @@
+package fr.guddy.androidstarter.rest.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Singleton;
+
+/**
+ * Duration histograms of every phase of the HTTP calls, fed by {@link NetworkMetricsEventListener}.
+ */
+@Singleton
+public class NetworkMetrics {
+
+    public enum Phase {
+        DNS,
+        CONNECT,
+        TLS,
+        REQUEST,
+        /**
+         * From the end of the request to the first byte of the response headers.
+         */
+        TTFB,
+        BODY,
+        /**
+         * Whole call, including calls answered by the cache.
+         */
+        CALL
+    }
+
+    //region Fields
+    private final Map<Phase, Histogram> mHistograms = new EnumMap<>(Phase.class);
+    private long mResetAtMs = System.currentTimeMillis();
+    //endregion
+
+    //region Constructor
+    public NetworkMetrics() {
+        for (final Phase loPhase : Phase.values()) {
+            mHistograms.put(loPhase, new Histogram());
+        }
+    }
+    //endregion
+
+    //region Visible API
+    public void record(@NonNull final Phase poPhase, final long plDurationMs) {
+        mHistograms.get(poPhase).record(plDurationMs);
+    }
+
+    @NonNull
+    public Histogram getHistogram(@NonNull final Phase poPhase) {
+        return mHistograms.get(poPhase);
+    }
+
+    public void reset() {
+        for (final Histogram loHistogram : mHistograms.values()) {
+            loHistogram.reset();
+        }
+        mResetAtMs = System.currentTimeMillis();
+    }
+
+    /**
+     * @return one line per phase, durations in milliseconds
+     */
+    @NonNull
+    public String report() {
+        final StringBuilder loBuilder = new StringBuilder();
+        for (final Phase loPhase : Phase.values()) {
+            loBuilder.append(String.format(Locale.US, "%-7s ", loPhase.name()))
+                    .append(mHistograms.get(loPhase).summary())
+                    .append('\n');
+        }
+        return loBuilder.toString();
+    }
+
+    /**
+     * Writes {@link #report()} in a new file of the given directory. Must not be called from the main thread.
+     *
+     * @return the written file
+     */
+    @NonNull
+    public File dump(@NonNull final File poDirectory) throws IOException {
+        final SimpleDateFormat loFormat = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US);
+        final File loFile = new File(poDirectory, "network_metrics_" + loFormat.format(new Date()) + ".txt");
+        final Writer loWriter = new OutputStreamWriter(new FileOutputStream(loFile), "UTF-8");
+        try {
+            loWriter.write("# since " + new Date(mResetAtMs) + ", durations in ms\n");
+            loWriter.write(report());
+        } finally {
+            loWriter.close();
+        }
+        return loFile;
+    }
+    //endregion
+}
@@ -0,0 +1,106 @@
+package fr.guddy.androidstarter.rest.metrics;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.orhanobut.logger.Logger;
+
+import java.io.File;
+import java.io.IOException;
+
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.R;
+import io.palaima.debugdrawer.base.DebugModule;
+
+/**
+ * DebugDrawer section showing the {@link NetworkMetrics} histograms, with actions to reset them
+ * or dump them to a file in the app's external files directory.
+ */
+public class NetworkMetricsDebugModule implements DebugModule {
+    private static final String TAG = NetworkMetricsDebugModule.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    //region Fields
+    private final NetworkMetrics mNetworkMetrics;
+    private TextView mTextViewReport;
+    //endregion
+
+    //region Constructor
+    public NetworkMetricsDebugModule(@NonNull final NetworkMetrics poNetworkMetrics) {
+        mNetworkMetrics = poNetworkMetrics;
+    }
+    //endregion
+
+    //region DebugModule
+    @NonNull
+    @Override
+    public View onCreateView(@NonNull final LayoutInflater poInflater, @NonNull final ViewGroup poParent) {
+        final View loView = poInflater.inflate(R.layout.debug_drawer_network_metrics, poParent, false);
+        mTextViewReport = (TextView) loView.findViewById(R.id.NetworkMetricsDebugModule_TextView_Report);
+        loView.findViewById(R.id.NetworkMetricsDebugModule_Button_Reset).setOnClickListener((final View poButton) -> {
+            mNetworkMetrics.reset();
+            refresh();
+        });
+        loView.findViewById(R.id.NetworkMetricsDebugModule_Button_Dump).setOnClickListener(this::dump);
+        refresh();
+        return loView;
+    }
+
+    @Override
+    public void onOpened() {
+        refresh();
+    }
+
+    @Override
+    public void onClosed() {
+    }
+
+    @Override
+    public void onResume() {
+    }
+
+    @Override
+    public void onPause() {
+    }
+
+    @Override
+    public void onStart() {
+    }
+
+    @Override
+    public void onStop() {
+    }
+    //endregion
+
+    //region Specific job
+    private void refresh() {
+        if (mTextViewReport != null) {
+            mTextViewReport.setText(mNetworkMetrics.report());
+        }
+    }
+
+    private void dump(@NonNull final View poButton) {
+        final Context loContext = poButton.getContext().getApplicationContext();
+        // file I/O is not allowed on the main thread
+        new Thread(() -> {
+            String lsMessage;
+            try {
+                final File loDirectory = loContext.getExternalFilesDir(null) != null ? loContext.getExternalFilesDir(null) : loContext.getFilesDir();
+                lsMessage = mNetworkMetrics.dump(loDirectory).getAbsolutePath();
+            } catch (final IOException loException) {
+                if (BuildConfig.DEBUG && DEBUG) {
+                    Logger.t(TAG).e(loException, "");
+                }
+                lsMessage = loException.getMessage();
+            }
+            final String lsToast = lsMessage;
+            poButton.post(() -> Toast.makeText(loContext, lsToast, Toast.LENGTH_LONG).show());
+        }, TAG).start();
+    }
+    //endregion
+}
@@ -0,0 +1,134 @@
+package fr.guddy.androidstarter.rest.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+/**
+ * Records the duration of each phase of one call into {@link NetworkMetrics}.
+ * A listener is created per call, so its fields are only touched by the thread running this call.
+ */
+public class NetworkMetricsEventListener extends EventListener {
+
+    //region Factory
+    public static EventListener.Factory factory(@NonNull final NetworkMetrics poNetworkMetrics) {
+        return (final Call poCall) -> new NetworkMetricsEventListener(poNetworkMetrics);
+    }
+    //endregion
+
+    //region Fields
+    private final NetworkMetrics mNetworkMetrics;
+    private long mCallStartNs;
+    private long mDnsStartNs;
+    private long mConnectStartNs;
+    private long mSecureConnectStartNs;
+    private long mRequestStartNs;
+    private long mRequestEndNs;
+    private long mResponseBodyStartNs;
+    //endregion
+
+    //region Constructor
+    private NetworkMetricsEventListener(@NonNull final NetworkMetrics poNetworkMetrics) {
+        mNetworkMetrics = poNetworkMetrics;
+    }
+    //endregion
+
+    //region EventListener
+    @Override
+    public void callStart(final Call poCall) {
+        mCallStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(final Call poCall, final String psDomainName) {
+        mDnsStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(final Call poCall, final String psDomainName, final List<InetAddress> ploInetAddresses) {
+        record(NetworkMetrics.Phase.DNS, mDnsStartNs);
+    }
+
+    @Override
+    public void connectStart(final Call poCall, final InetSocketAddress poInetSocketAddress, final Proxy poProxy) {
+        mConnectStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(final Call poCall) {
+        mSecureConnectStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(final Call poCall, final Handshake poHandshake) {
+        record(NetworkMetrics.Phase.TLS, mSecureConnectStartNs);
+    }
+
+    @Override
+    public void connectEnd(final Call poCall, final InetSocketAddress poInetSocketAddress, final Proxy poProxy, final Protocol poProtocol) {
+        record(NetworkMetrics.Phase.CONNECT, mConnectStartNs);
+    }
+
+    @Override
+    public void requestHeadersStart(final Call poCall) {
+        mRequestStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(final Call poCall, final Request poRequest) {
+        mRequestEndNs = System.nanoTime();
+        if (poRequest.body() == null) {
+            record(NetworkMetrics.Phase.REQUEST, mRequestStartNs);
+        }
+    }
+
+    @Override
+    public void requestBodyEnd(final Call poCall, final long plByteCount) {
+        mRequestEndNs = System.nanoTime();
+        record(NetworkMetrics.Phase.REQUEST, mRequestStartNs);
+    }
+
+    @Override
+    public void responseHeadersStart(final Call poCall) {
+        record(NetworkMetrics.Phase.TTFB, mRequestEndNs);
+    }
+
+    @Override
+    public void responseBodyStart(final Call poCall) {
+        mResponseBodyStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(final Call poCall, final long plByteCount) {
+        record(NetworkMetrics.Phase.BODY, mResponseBodyStartNs);
+    }
+
+    @Override
+    public void callEnd(final Call poCall) {
+        record(NetworkMetrics.Phase.CALL, mCallStartNs);
+    }
+
+    @Override
+    public void callFailed(final Call poCall, final IOException poException) {
+        record(NetworkMetrics.Phase.CALL, mCallStartNs);
+    }
+    //endregion
+
+    //region Specific job
+    private void record(@NonNull final NetworkMetrics.Phase poPhase, final long plStartNs) {
+        if (plStartNs != 0L) {
+            mNetworkMetrics.record(poPhase, (System.nanoTime() - plStartNs) / 1000000L);
+        }
+    }
+    //endregion
+}
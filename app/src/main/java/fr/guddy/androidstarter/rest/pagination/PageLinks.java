@@ -0,0 +1,78 @@
+package fr.guddy.androidstarter.rest.pagination;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.HttpUrl;
+import retrofit2.Response;
+
+/**
+ * Parsed GitHub {@code Link} response header, as described in
+ * <a href="https://developer.github.com/v3/#pagination">the API documentation</a>.
+ */
+public final class PageLinks {
+    public static final String HEADER_LINK = "Link";
+    public static final String QUERY_PARAMETER_PAGE = "page";
+
+    private static final Pattern sLinkPattern = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"([^\"]+)\"");
+
+    private static final String REL_NEXT = "next";
+    private static final String REL_LAST = "last";
+
+    //region Fields
+    private final Map<String, String> mUrlByRel;
+    //endregion
+
+    //region Constructor
+    private PageLinks(@NonNull final Map<String, String> pmUrlByRel) {
+        mUrlByRel = pmUrlByRel;
+    }
+    //endregion
+
+    //region Factory methods
+    public static PageLinks parse(@Nullable final String psLinkHeader) {
+        final Map<String, String> lmUrlByRel = new HashMap<>();
+        if (psLinkHeader != null) {
+            final Matcher loMatcher = sLinkPattern.matcher(psLinkHeader);
+            while (loMatcher.find()) {
+                lmUrlByRel.put(loMatcher.group(2), loMatcher.group(1));
+            }
+        }
+        return new PageLinks(lmUrlByRel);
+    }
+
+    public static PageLinks from(@NonNull final Response<?> poResponse) {
+        return parse(poResponse.headers().get(HEADER_LINK));
+    }
+    //endregion
+
+    //region Visible API
+    public boolean hasNext() {
+        return mUrlByRel.containsKey(REL_NEXT);
+    }
+
+    /**
+     * @return the number of the last page, or {@code 1} if the response is not paginated
+     */
+    public int getLastPage() {
+        final String lsLastUrl = mUrlByRel.get(REL_LAST);
+        if (lsLastUrl == null) {
+            return 1;
+        }
+        final HttpUrl loUrl = HttpUrl.parse(lsLastUrl);
+        if (loUrl == null) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(loUrl.queryParameter(QUERY_PARAMETER_PAGE)));
+        } catch (final NumberFormatException loException) {
+            return 1;
+        }
+    }
+    //endregion
+}
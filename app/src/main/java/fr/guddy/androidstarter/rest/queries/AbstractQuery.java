@@ -3,44 +3,113 @@ package fr.guddy.androidstarter.rest.queries;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.birbit.android.jobqueue.CancelReason;
 import com.birbit.android.jobqueue.Job;
 import com.birbit.android.jobqueue.Params;
 import com.birbit.android.jobqueue.RetryConstraint;
 import com.orhanobut.logger.Logger;
 
+import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import javax.inject.Inject;
 
 import fr.guddy.androidstarter.BuildConfig;
 import fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish;
+import fr.guddy.androidstarter.rest.circuit_breaker.CircuitBreaker;
+import fr.guddy.androidstarter.rest.circuit_breaker.CircuitBreakerRegistry;
+import fr.guddy.androidstarter.rest.error_handling.CircuitOpenException;
+import fr.guddy.androidstarter.rest.error_handling.NotCachedException;
+import fr.guddy.androidstarter.rest.error_handling.RetrofitException;
+import fr.guddy.androidstarter.rest.interceptors.ConditionalRequestInterceptor;
 import hugo.weaving.DebugLog;
+import retrofit2.Call;
 import retrofit2.Response;
 
 public abstract class AbstractQuery extends Job {
     private static final String TAG = AbstractQuery.class.getSimpleName();
     private static final boolean DEBUG = true;
 
-    protected enum Priority {
-        LOW(0),
-        MEDIUM(500),
-        HIGH(1000);
+    public enum Priority {
+        // background work can wait longer between attempts
+        LOW(0, new RetryPolicy(5, 2000L, 60000L)),
+        MEDIUM(500, new RetryPolicy(4, 1000L, 30000L)),
+        HIGH(1000, new RetryPolicy(3, 500L, 10000L));
         private final int value;
+        public final RetryPolicy defaultRetryPolicy;
 
-        Priority(final int piValue) {
+        Priority(final int piValue, final RetryPolicy poDefaultRetryPolicy) {
             value = piValue;
+            defaultRetryPolicy = poDefaultRetryPolicy;
         }
     }
 
+    private static final ThreadLocal<AbstractQuery> sCurrentQuery = new ThreadLocal<>();
+
+    public final Priority priority;
     protected boolean mSuccess;
     protected Throwable mThrowable;
     protected AbstractEventQueryDidFinish.ErrorType mErrorType;
+    protected volatile RetryPolicy mRetryPolicy;
+
+    @Inject
+    transient CircuitBreakerRegistry circuitBreakerRegistry;
+    @Inject
+    transient ConditionalRequestInterceptor conditionalRequestInterceptor;
+
+    /**
+     * Set when the query has been added through an {@link InFlightQueryRegistry}.
+     */
+    transient InFlightQueryRegistry mInFlightQueryRegistry;
+
+    /**
+     * Calls of the current run, guarded by {@code this}.
+     */
+    private transient Set<Call<?>> mCalls;
+    /**
+     * Responses whose body has been stored by the current run, guarded by {@code this}.
+     */
+    private transient List<okhttp3.Response> mStoredResponses;
+    private transient volatile boolean mCancelRequested;
+    /**
+     * Priority of the requests still to be sent, raised by {@link #upgradeFor(AbstractQuery)}; null until then.
+     */
+    private transient volatile Priority mRequestPriority;
+    private boolean mFinishPosted;
 
     //region Protected constructor
     protected AbstractQuery(final Priority poPriority) {
         super(new Params(poPriority.value).requireNetwork());
+        priority = poPriority;
+        mRetryPolicy = poPriority.defaultRetryPolicy;
     }
 
     protected AbstractQuery(final Priority poPriority, final boolean pbPersistent, final String psGroupId, final long plDelayMs) {
-        super(new Params(poPriority.value).requireNetwork().setPersistent(pbPersistent).setGroupId(psGroupId).setDelayMs(plDelayMs));
+        this(poPriority, pbPersistent, psGroupId, plDelayMs, poPriority.defaultRetryPolicy);
+    }
+
+    /**
+     * @param psTags tags to cancel this query with, through {@link InFlightQueryRegistry#cancel(String...)}
+     */
+    protected AbstractQuery(final Priority poPriority, final boolean pbPersistent, final String psGroupId, final long plDelayMs, @NonNull final RetryPolicy poRetryPolicy, final String... psTags) {
+        this(poPriority, pbPersistent, psGroupId, null, plDelayMs, poRetryPolicy, psTags);
+    }
+
+    /**
+     * @param psSingleId while a query with this id is queued and not running yet, the {@link com.birbit.android.jobqueue.JobManager}
+     *                   drops any other one with the same id
+     */
+    protected AbstractQuery(final Priority poPriority, final boolean pbPersistent, final String psGroupId, final String psSingleId, final long plDelayMs, @NonNull final RetryPolicy poRetryPolicy, final String... psTags) {
+        super(new Params(poPriority.value).requireNetwork().setPersistent(pbPersistent).setGroupId(psGroupId).setSingleId(psSingleId).setDelayMs(plDelayMs).addTags(psTags));
+        priority = poPriority;
+        mRetryPolicy = poRetryPolicy;
     }
     //endregion
 
@@ -62,39 +131,325 @@ public abstract class AbstractQuery extends Job {
 
         inject();
 
+        sCurrentQuery.set(this);
+        CircuitBreaker loCircuitBreaker = null;
         try {
+            // cancelled while queued, by a caller detaching from it
+            throwIfCancelled();
+            loCircuitBreaker = acquireCircuitBreaker();
             execute();
+            saveValidators();
             mSuccess = true;
+            if (loCircuitBreaker != null) {
+                loCircuitBreaker.onSuccess();
+            }
         } catch (Throwable loThrowable) {
             if (BuildConfig.DEBUG && DEBUG) {
-                Logger.t(TAG).e(loThrowable, "");
+                Logger.t(TAG).e(loThrowable, "run %d/%d", getCurrentRunCount(), getRetryLimit());
+            }
+            if (loCircuitBreaker != null) {
+                if (isCancelRequested()) {
+                    loCircuitBreaker.onIgnored();
+                } else {
+                    loCircuitBreaker.onFailure(loThrowable);
+                }
+            }
+            if (isCancelRequested()) {
+                // the failure is the consequence of the cancellation (aborted call, interrupted write)
+                mErrorType = AbstractEventQueryDidFinish.ErrorType.CANCELLED;
+            } else if (mRetryPolicy.isRetryable(loThrowable) && getCurrentRunCount() < getRetryLimit()) {
+                // the JobManager asks shouldReRunOnThrowable when to run again, nothing is posted meanwhile
+                throw loThrowable;
+            } else {
+                mErrorType = toErrorType(loThrowable);
             }
-            mErrorType = AbstractEventQueryDidFinish.ErrorType.UNKNOWN;
             mThrowable = loThrowable;
             mSuccess = false;
+        } finally {
+            sCurrentQuery.remove();
+            clearCalls();
+            clearStoredResponses();
         }
 
-        postEventQueryFinished();
+        finish();
     }
 
     @Override
     protected void onCancel(final int cancelReason, @Nullable final Throwable poThrowable) {
+        if (mFinishPosted || cancelReason == CancelReason.SINGLE_INSTANCE_ID_QUEUED) {
+            // cancelled while running, the run already posted its result; or dropped for the identical query already queued, which will post it
+            releaseInFlight();
+            return;
+        }
+        // never ran, or the last run threw: the query has not been injected, or its failure not posted yet
+        inject();
+        mErrorType = (cancelReason == CancelReason.REACHED_RETRY_LIMIT || cancelReason == CancelReason.CANCELLED_VIA_SHOULD_RE_RUN) && poThrowable != null
+                ? toErrorType(poThrowable)
+                : AbstractEventQueryDidFinish.ErrorType.CANCELLED;
+        mThrowable = poThrowable;
+        mSuccess = false;
+        finish();
     }
 
     @Override
     protected RetryConstraint shouldReRunOnThrowable(@NonNull final Throwable poThrowable, final int piRunCount, final int piMaxRunCount) {
-        return null;
+        final RetryConstraint loConstraint = mRetryPolicy.getRetryConstraint(poThrowable, piRunCount);
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("retry = %b, delay = %d ms", loConstraint.shouldRetry(), loConstraint.getNewDelayInMs());
+        }
+        return loConstraint;
     }
 
     @DebugLog
     @Override
     protected int getRetryLimit() {
-        return 1;
+        return mRetryPolicy.maxRunCount;
+    }
+    //endregion
+
+    //region Priority propagation
+
+    /**
+     * @return the priority of the query running on the calling thread, or null if it is not running a query
+     */
+    @Nullable
+    public static Priority getCurrentPriority() {
+        final AbstractQuery loQuery = sCurrentQuery.get();
+        return loQuery == null ? null : loQuery.getRequestPriority();
+    }
+
+    /**
+     * @return the priority given to the requests of this query: its own one, or the one of a caller it has been upgraded for
+     */
+    @NonNull
+    public Priority getRequestPriority() {
+        final Priority loPriority = mRequestPriority;
+        return loPriority == null ? priority : loPriority;
+    }
+
+    /**
+     * Called by {@link InFlightQueryRegistry} when a caller attaches to this query with an identical one.
+     * If the attached query has a higher priority, the requests still to be sent take it, along with its retry policy
+     * when this query uses the default one of its priority. The position in the JobManager queue cannot change,
+     * neither can the requests already sent.
+     */
+    protected void upgradeFor(@NonNull final AbstractQuery poAttached) {
+        final Priority loPriority = getRequestPriority();
+        if (poAttached.priority.value <= loPriority.value) {
+            return;
+        }
+        if (mRetryPolicy == loPriority.defaultRetryPolicy) {
+            mRetryPolicy = poAttached.mRetryPolicy;
+        }
+        mRequestPriority = poAttached.priority;
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("upgraded from %s to %s", loPriority, poAttached.priority);
+        }
+    }
+
+    /**
+     * Wraps a task submitted to another thread by {@link #execute()}, so that its requests keep this query's priority.
+     */
+    protected <T> Callable<T> withPriority(@NonNull final Callable<T> poTask) {
+        return () -> {
+            sCurrentQuery.set(this);
+            try {
+                return poTask.call();
+            } finally {
+                sCurrentQuery.remove();
+            }
+        };
+    }
+    //endregion
+
+    //region Cancellation
+
+    /**
+     * Aborts the running query: registered calls are cancelled and {@link #throwIfCancelled()} throws from now on.
+     * Called by {@link InFlightQueryRegistry#cancel(String...)}, in addition to the {@link com.birbit.android.jobqueue.JobManager} cancellation.
+     */
+    public synchronized void cancelInFlight() {
+        mCancelRequested = true;
+        if (mCalls != null) {
+            for (final Call<?> loCall : mCalls) {
+                loCall.cancel();
+            }
+        }
+    }
+
+    public boolean isCancelRequested() {
+        return mCancelRequested || isCancelled();
+    }
+
+    /**
+     * To be called by {@link #execute()} between steps, and before every write, so that a cancelled query stops there.
+     */
+    protected void throwIfCancelled() {
+        if (isCancelRequested()) {
+            throw new CancellationException(getClass().getSimpleName() + " cancelled");
+        }
+    }
+
+    /**
+     * Makes the call abortable by {@link #cancelInFlight()}. Every call executed by {@link #execute()} should go through it.
+     */
+    protected synchronized <T> Call<T> register(@NonNull final Call<T> poCall) {
+        if (mCalls == null) {
+            // transient, so rebuilt after a persisted query is read back
+            mCalls = new HashSet<>();
+        }
+        mCalls.add(poCall);
+        if (mCancelRequested) {
+            poCall.cancel();
+        }
+        return poCall;
+    }
+
+    private synchronized void clearCalls() {
+        if (mCalls != null) {
+            mCalls.clear();
+        }
+    }
+    //endregion
+
+    //region Validators
+
+    /**
+     * To be called by {@link #execute()} once the body of the response has been stored. The validators of the response
+     * are only saved when {@link #execute()} returns, so that a failed or cancelled run never leaves validators
+     * for data missing from the database.
+     */
+    protected synchronized <T> void onStored(@NonNull final Response<T> poResponse) {
+        if (mStoredResponses == null) {
+            mStoredResponses = new ArrayList<>();
+        }
+        mStoredResponses.add(poResponse.raw());
+    }
+
+    private synchronized void saveValidators() {
+        if (mStoredResponses == null || conditionalRequestInterceptor == null) {
+            return;
+        }
+        for (final okhttp3.Response loResponse : mStoredResponses) {
+            conditionalRequestInterceptor.save(loResponse);
+        }
+    }
+
+    private synchronized void clearStoredResponses() {
+        if (mStoredResponses != null) {
+            mStoredResponses.clear();
+        }
+    }
+    //endregion
+
+    //region Circuit breaking
+
+    /**
+     * @return the endpoint called by this query, whose failures open its circuit; null for no circuit breaking
+     */
+    @Nullable
+    public String getEndpoint() {
+        return null;
+    }
+
+    /**
+     * @return the circuit breaker to report the outcome to, null if there is none
+     * @throws CircuitOpenException if the circuit is open
+     */
+    @Nullable
+    private CircuitBreaker acquireCircuitBreaker() {
+        final String lsEndpoint = getEndpoint();
+        if (lsEndpoint == null || circuitBreakerRegistry == null) {
+            return null;
+        }
+        final CircuitBreaker loCircuitBreaker = circuitBreakerRegistry.get(lsEndpoint);
+        if (!loCircuitBreaker.tryAcquire()) {
+            throw new CircuitOpenException(lsEndpoint, loCircuitBreaker.getRetryAfterMs());
+        }
+        return loCircuitBreaker;
+    }
+
+    /**
+     * Maps a failure to the {@link AbstractEventQueryDidFinish.ErrorType} posted to subscribers.
+     */
+    @NonNull
+    protected static AbstractEventQueryDidFinish.ErrorType toErrorType(@NonNull final Throwable poThrowable) {
+        Throwable loCause = poThrowable;
+        while (loCause instanceof ExecutionException && loCause.getCause() != null) {
+            loCause = loCause.getCause();
+        }
+        if (loCause instanceof CircuitOpenException) {
+            return AbstractEventQueryDidFinish.ErrorType.CIRCUIT_OPEN;
+        }
+        if (loCause instanceof NotCachedException) {
+            return AbstractEventQueryDidFinish.ErrorType.NETWORK_UNREACHABLE;
+        }
+        if (loCause instanceof IOException) {
+            return AbstractEventQueryDidFinish.ErrorType.NETWORK;
+        }
+        if (loCause instanceof RetrofitException) {
+            switch (((RetrofitException) loCause).getKind()) {
+                case NETWORK:
+                    return AbstractEventQueryDidFinish.ErrorType.NETWORK;
+                case HTTP:
+                    return AbstractEventQueryDidFinish.ErrorType.HTTP;
+                case UNEXPECTED:
+                default:
+                    return AbstractEventQueryDidFinish.ErrorType.UNKNOWN;
+            }
+        }
+        return AbstractEventQueryDidFinish.ErrorType.UNKNOWN;
+    }
+    //endregion
+
+    //region In-flight management
+
+    /**
+     * Identifies the work done by this query (typically the endpoint and its parameters), so that
+     * {@link InFlightQueryRegistry} can coalesce identical queries.
+     *
+     * @return the key, or null if this query must never be coalesced
+     */
+    public String getInFlightKey() {
+        return null;
+    }
+
+    private void finish() {
+        // released before posting, so that subscribers can start a new query right away
+        releaseInFlight();
+        mFinishPosted = true;
+        postEventQueryFinished();
+    }
+
+    private void releaseInFlight() {
+        if (mInFlightQueryRegistry != null) {
+            mInFlightQueryRegistry.release(this);
+        }
     }
     //endregion
 
     //region Protected helper method
+
+    /**
+     * @return the given response, if it is successful or a 304
+     * @throws NotCachedException if the request was restricted to the cache, which had nothing usable
+     * @throws RetrofitException of kind {@link RetrofitException.Kind#HTTP} otherwise, so that {@link #mRetryPolicy} can classify it
+     */
+    protected <T> Response<T> checkResponse(@NonNull final Response<T> poResponse) {
+        if (poResponse.code() == HttpURLConnection.HTTP_GATEWAY_TIMEOUT && poResponse.raw().networkResponse() == null) {
+            throw new NotCachedException(poResponse.raw().request().url().toString());
+        }
+        if (!poResponse.isSuccessful() && poResponse.code() != HttpURLConnection.HTTP_NOT_MODIFIED) {
+            throw RetrofitException.httpError(poResponse);
+        }
+        return poResponse;
+    }
+
     protected <T> boolean isCached(@NonNull final Response<T> poResponse) {
+        if (poResponse.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            // conditional request built from the persisted validators, OkHttp had no cached body to serve
+            return true;
+        }
         if (poResponse.isSuccessful() &&
                 (
                         (poResponse.raw().networkResponse() != null && poResponse.raw().networkResponse().code() == HttpURLConnection.HTTP_NOT_MODIFIED)
@@ -0,0 +1,177 @@
+package fr.guddy.androidstarter.rest.queries;
+
+import android.support.annotation.NonNull;
+
+import com.orhanobut.logger.Logger;
+import com.squareup.otto.Subscribe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.bus.BusManager;
+import fr.guddy.androidstarter.bus.event.AbstractEvent;
+import fr.guddy.androidstarter.di.modules.ModuleAsync;
+
+/**
+ * Syncs the repos of several users, with at most {@link #concurrency} {@link QueryGetRepos} in flight.
+ * <p>
+ * A new query is added each time a previous one finishes, so the {@link com.birbit.android.jobqueue.JobManager}
+ * queue never holds the whole batch. Queries for the same user share a job group, so their writes are serialized.
+ * Queries have a {@link AbstractQuery.Priority#LOW low} priority, so that a refresh asked by the user goes first.
+ * Progress is posted after each user with {@link EventBatchSyncReposProgress}, and the whole run ends
+ * with {@link EventBatchSyncReposDidFinish}.
+ * </p>
+ */
+public class BatchSyncRepos {
+    private static final String TAG = BatchSyncRepos.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    //region Fields
+    public final int concurrency;
+    public final int totalCount;
+
+    private final BusManager mBusManager;
+    private final InFlightQueryRegistry mInFlightQueryRegistry;
+    private final Queue<String> mPendingUsers;
+    private final Map<AbstractQuery, String> mRunningQueries = new IdentityHashMap<>();
+    private final Map<String, Long> mStartTimes = new LinkedHashMap<>();
+    private final Map<String, Long> mDurations = new LinkedHashMap<>();
+    private final List<String> mFailedUsers = new ArrayList<>();
+    private long mStartedAt;
+    //endregion
+
+    //region Constructors
+    public BatchSyncRepos(@NonNull final BusManager poBusManager, @NonNull final InFlightQueryRegistry poInFlightQueryRegistry, @NonNull final Collection<String> ploUsers) {
+        this(poBusManager, poInFlightQueryRegistry, ploUsers, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param piConcurrency max number of users synced at the same time, clamped to [1, {@link ModuleAsync#MAX_CONSUMER_COUNT}]
+     */
+    public BatchSyncRepos(@NonNull final BusManager poBusManager, @NonNull final InFlightQueryRegistry poInFlightQueryRegistry, @NonNull final Collection<String> ploUsers, final int piConcurrency) {
+        mBusManager = poBusManager;
+        mInFlightQueryRegistry = poInFlightQueryRegistry;
+        mPendingUsers = new ArrayDeque<>(new LinkedHashSet<>(ploUsers));
+        totalCount = mPendingUsers.size();
+        concurrency = Math.max(1, Math.min(ModuleAsync.MAX_CONSUMER_COUNT, piConcurrency));
+    }
+    //endregion
+
+    //region Visible API
+    public void start() {
+        synchronized (this) {
+            mStartedAt = System.currentTimeMillis();
+            if (mPendingUsers.isEmpty()) {
+                postEventBatchDidFinish();
+                return;
+            }
+            mBusManager.registerSubscriberToBusAnyThread(this);
+            while (mRunningQueries.size() < concurrency && !mPendingUsers.isEmpty()) {
+                startNextQuery();
+            }
+        }
+    }
+    //endregion
+
+    //region Event management
+    @Subscribe
+    public void onEventQueryGetReposDidFinish(@NonNull final QueryGetRepos.EventQueryGetReposDidFinish poEvent) {
+        synchronized (this) {
+            // finish events are posted by the job threads, and may belong to queries started by someone else
+            final String lsUser = mRunningQueries.remove(poEvent.query);
+            if (lsUser == null) {
+                return;
+            }
+
+            final long llDuration = System.currentTimeMillis() - mStartTimes.get(lsUser);
+            mDurations.put(lsUser, llDuration);
+            if (!poEvent.success) {
+                mFailedUsers.add(lsUser);
+            }
+
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).d("%s synced in %d ms, success = %b (%d/%d)", lsUser, llDuration, poEvent.success, mDurations.size(), totalCount);
+            }
+
+            final EventBatchSyncReposProgress loEvent = new EventBatchSyncReposProgress(this, lsUser, poEvent.success, llDuration, mDurations.size(), totalCount);
+            mBusManager.postEventOnMainThread(loEvent);
+            mBusManager.postEventOnAnyThread(loEvent);
+
+            if (!mPendingUsers.isEmpty()) {
+                startNextQuery();
+            } else if (mRunningQueries.isEmpty()) {
+                mBusManager.unregisterSubscriberFromBusAnyThread(this);
+                postEventBatchDidFinish();
+            }
+        }
+    }
+    //endregion
+
+    //region Specific job
+    private void startNextQuery() {
+        final String lsUser = mPendingUsers.poll();
+        mStartTimes.put(lsUser, System.currentTimeMillis());
+        // if a query for this user is already in flight, its result is the one to wait for. Its finish event cannot be missed:
+        // a query leaves the registry before posting it, and the job thread posting it waits for this batch's monitor
+        final AbstractQuery loQuery = mInFlightQueryRegistry.enqueue(new QueryGetRepos(AbstractQuery.Priority.LOW, lsUser, false, QueryGetRepos.Mode.DELTA, QueryGetRepos.MAX_PER_PAGE));
+        mRunningQueries.put(loQuery, lsUser);
+    }
+
+    private void postEventBatchDidFinish() {
+        final EventBatchSyncReposDidFinish loEvent = new EventBatchSyncReposDidFinish(this, mFailedUsers.isEmpty(), System.currentTimeMillis() - mStartedAt,
+                Collections.unmodifiableMap(new LinkedHashMap<>(mDurations)), Collections.unmodifiableList(new ArrayList<>(mFailedUsers)));
+        mBusManager.postEventOnMainThread(loEvent);
+        mBusManager.postEventOnAnyThread(loEvent);
+    }
+    //endregion
+
+    //region Dedicated events
+    public static final class EventBatchSyncReposProgress extends AbstractEvent {
+        public final BatchSyncRepos batch;
+        public final String user;
+        public final boolean success;
+        public final long durationMs;
+        public final int completedCount;
+        public final int totalCount;
+
+        public EventBatchSyncReposProgress(final BatchSyncRepos poBatch, final String psUser, final boolean pbSuccess, final long plDurationMs, final int piCompletedCount, final int piTotalCount) {
+            batch = poBatch;
+            user = psUser;
+            success = pbSuccess;
+            durationMs = plDurationMs;
+            completedCount = piCompletedCount;
+            totalCount = piTotalCount;
+        }
+    }
+
+    public static final class EventBatchSyncReposDidFinish extends AbstractEvent {
+        public final BatchSyncRepos batch;
+        public final boolean success;
+        public final long durationMs;
+        /**
+         * Time from the query being added to its finish event, per user, in completion order.
+         */
+        public final Map<String, Long> durationsByUser;
+        public final List<String> failedUsers;
+
+        public EventBatchSyncReposDidFinish(final BatchSyncRepos poBatch, final boolean pbSuccess, final long plDurationMs, final Map<String, Long> pmDurationsByUser, final List<String> ploFailedUsers) {
+            batch = poBatch;
+            success = pbSuccess;
+            durationMs = plDurationMs;
+            durationsByUser = pmDurationsByUser;
+            failedUsers = ploFailedUsers;
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,162 @@
+package fr.guddy.androidstarter.rest.queries;
+
+import android.support.annotation.NonNull;
+
+import com.birbit.android.jobqueue.JobManager;
+import com.birbit.android.jobqueue.TagConstraint;
+import com.orhanobut.logger.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Singleton;
+
+import fr.guddy.androidstarter.BuildConfig;
+
+/**
+ * Single-flight entry point to add queries to the {@link JobManager}.
+ * <p>
+ * A query with a {@link AbstractQuery#getInFlightKey() key} is only added if no query with the same key
+ * is queued or running. Otherwise the caller is attached to the query in flight, which is
+ * {@link AbstractQuery#upgradeFor(AbstractQuery) upgraded} to the priority of the given one if higher: as the result
+ * is posted on the bus, every subscriber receives the same finish event.
+ * </p>
+ * <p>
+ * Queries added here can be {@link #cancel(String...) cancelled} by tag, including their running HTTP calls.
+ * A caller which no longer needs the result {@link #detach(AbstractQuery, Object) detaches} from the query instead:
+ * it is only cancelled once no caller is left waiting for it.
+ * </p>
+ */
+@Singleton
+public class InFlightQueryRegistry {
+    private static final String TAG = InFlightQueryRegistry.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    //region Fields
+    private final JobManager mJobManager;
+    private final Map<String, AbstractQuery> mInFlightQueries = new HashMap<>();
+    /**
+     * Every query added and not finished yet, keyed or not, with the callers attached to it. Guarded by {@link #mInFlightQueries}.
+     */
+    private final Map<AbstractQuery, Set<Object>> mActiveQueries = new IdentityHashMap<>();
+    //endregion
+
+    //region Constructor
+    public InFlightQueryRegistry(@NonNull final JobManager poJobManager) {
+        mJobManager = poJobManager;
+    }
+    //endregion
+
+    //region Visible API
+
+    /**
+     * Same as {@link #enqueue(AbstractQuery, Object)}, for a caller which never detaches.
+     */
+    public AbstractQuery enqueue(@NonNull final AbstractQuery poQuery) {
+        return enqueue(poQuery, new Object());
+    }
+
+    /**
+     * @param poCaller attached to the query delivering the result, until it calls {@link #detach(AbstractQuery, Object)}
+     * @return the query which will deliver the result: either the given one, or the one already in flight
+     */
+    public AbstractQuery enqueue(@NonNull final AbstractQuery poQuery, @NonNull final Object poCaller) {
+        final String lsKey = poQuery.getInFlightKey();
+        synchronized (mInFlightQueries) {
+            if (lsKey != null) {
+                final AbstractQuery loInFlightQuery = mInFlightQueries.get(lsKey);
+                if (loInFlightQuery != null) {
+                    if (BuildConfig.DEBUG && DEBUG) {
+                        Logger.t(TAG).d("attached to in-flight query %s", lsKey);
+                    }
+                    mActiveQueries.get(loInFlightQuery).add(poCaller);
+                    loInFlightQuery.upgradeFor(poQuery);
+                    return loInFlightQuery;
+                }
+                mInFlightQueries.put(lsKey, poQuery);
+            }
+            final Set<Object> lloCallers = Collections.newSetFromMap(new IdentityHashMap<>());
+            lloCallers.add(poCaller);
+            mActiveQueries.put(poQuery, lloCallers);
+            poQuery.mInFlightQueryRegistry = this;
+        }
+        mJobManager.addJobInBackground(poQuery);
+        return poQuery;
+    }
+
+    /**
+     * The caller no longer waits for the query. Once no caller is left, the query is cancelled as by {@link #cancel(String...)}:
+     * a queued one stops as soon as it runs. A query shared with another caller keeps running.
+     */
+    public void detach(@NonNull final AbstractQuery poQuery, @NonNull final Object poCaller) {
+        synchronized (mInFlightQueries) {
+            final Set<Object> lloCallers = mActiveQueries.get(poQuery);
+            if (lloCallers == null || !lloCallers.remove(poCaller) || !lloCallers.isEmpty()) {
+                return;
+            }
+            unmap(poQuery);
+        }
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("last caller detached from %s", poQuery.getInFlightKey());
+        }
+        poQuery.cancelInFlight();
+    }
+
+    /**
+     * Cancels the queries having any of the given tags: queued ones are removed from the {@link JobManager},
+     * running ones have their HTTP calls aborted and stop before their next write.
+     * Each cancelled query posts its finish event with {@link fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish.ErrorType#CANCELLED}.
+     */
+    public void cancel(@NonNull final String... psTags) {
+        mJobManager.cancelJobsInBackground(null, TagConstraint.ANY, psTags);
+
+        final List<String> lloTags = Arrays.asList(psTags);
+        final List<AbstractQuery> lloToCancel = new ArrayList<>();
+        synchronized (mInFlightQueries) {
+            for (final AbstractQuery loQuery : mActiveQueries.keySet()) {
+                if (!Collections.disjoint(loQuery.getTags(), lloTags)) {
+                    lloToCancel.add(loQuery);
+                    unmap(loQuery);
+                }
+            }
+        }
+        for (final AbstractQuery loQuery : lloToCancel) {
+            loQuery.cancelInFlight();
+        }
+    }
+
+    public boolean isInFlight(@NonNull final String psKey) {
+        synchronized (mInFlightQueries) {
+            return mInFlightQueries.containsKey(psKey);
+        }
+    }
+    //endregion
+
+    //region Package-private API
+    void release(@NonNull final AbstractQuery poQuery) {
+        synchronized (mInFlightQueries) {
+            mActiveQueries.remove(poQuery);
+            unmap(poQuery);
+        }
+    }
+    //endregion
+
+    //region Specific job
+
+    /**
+     * Makes the next query with the same key start afresh, instead of attaching to this one. Guarded by {@link #mInFlightQueries}.
+     */
+    private void unmap(@NonNull final AbstractQuery poQuery) {
+        final String lsKey = poQuery.getInFlightKey();
+        if (lsKey != null && mInFlightQueries.get(lsKey) == poQuery) {
+            mInFlightQueries.remove(lsKey);
+        }
+    }
+    //endregion
+}
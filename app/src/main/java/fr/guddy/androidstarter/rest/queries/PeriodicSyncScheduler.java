@@ -0,0 +1,186 @@
+package fr.guddy.androidstarter.rest.queries;
+
+import android.support.annotation.NonNull;
+
+import com.birbit.android.jobqueue.JobManager;
+import com.novoda.merlin.Merlin;
+import com.orhanobut.logger.Logger;
+import com.squareup.otto.Subscribe;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.IEnvironment;
+import fr.guddy.androidstarter.bus.BusManager;
+import fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish;
+import fr.guddy.androidstarter.persistence.dao.DAOSyncState;
+import fr.guddy.androidstarter.persistence.entities.SyncStateEntity;
+
+/**
+ * Keeps the repos of the scheduled users fresh in background, so that a screen usually opens on up to date data.
+ * <p>
+ * Each user has one {@link QueryGetRepos#periodic(String, long) periodic} query queued: persisted, delayed,
+ * requiring the network, and the only one queued for this user. When it finishes, the next one is queued:
+ * </p>
+ * <ul>
+ * <li>after twice the previous interval (up to {@link IEnvironment#getPeriodicSyncMaxIntervalMs()}) if nothing changed</li>
+ * <li>after {@link IEnvironment#getPeriodicSyncIntervalMs()} if something changed</li>
+ * <li>as soon as Merlin reports a connection if it failed for lack of network</li>
+ * <li>never if it was cancelled</li>
+ * </ul>
+ */
+public class PeriodicSyncScheduler {
+    private static final String TAG = PeriodicSyncScheduler.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    //region Fields
+    private final JobManager mJobManager;
+    private final BusManager mBusManager;
+    private final Merlin mMerlin;
+    private final DAOSyncState mDaoSyncState;
+    private final long mIntervalMs;
+    private final long mMaxIntervalMs;
+    /**
+     * Current interval of each scheduled user. Guarded by {@code this}.
+     */
+    private final Map<String, Long> mIntervalsMs = new HashMap<>();
+    /**
+     * Users whose last sync failed for lack of network. Guarded by {@code this}.
+     */
+    private final Set<String> mUsersAwaitingNetwork = new HashSet<>();
+    /**
+     * Database reads and job additions are kept off the main thread, which calls {@link #schedule(String)} and the Merlin callbacks.
+     */
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private boolean mStarted;
+    //endregion
+
+    //region Constructor
+    public PeriodicSyncScheduler(@NonNull final JobManager poJobManager,
+                                 @NonNull final BusManager poBusManager,
+                                 @NonNull final Merlin poMerlin,
+                                 @NonNull final DAOSyncState poDaoSyncState,
+                                 @NonNull final IEnvironment poEnvironment) {
+        mJobManager = poJobManager;
+        mBusManager = poBusManager;
+        mMerlin = poMerlin;
+        mDaoSyncState = poDaoSyncState;
+        mIntervalMs = poEnvironment.getPeriodicSyncIntervalMs();
+        mMaxIntervalMs = Math.max(mIntervalMs, poEnvironment.getPeriodicSyncMaxIntervalMs());
+    }
+    //endregion
+
+    //region Visible API
+    public boolean isEnabled() {
+        return mIntervalMs > 0L;
+    }
+
+    /**
+     * Follows the periodic queries, including the ones persisted before a restart. To be called once, at startup.
+     */
+    public synchronized void start() {
+        if (mStarted || !isEnabled()) {
+            return;
+        }
+        mStarted = true;
+        mBusManager.registerSubscriberToBusAnyThread(this);
+        mMerlin.registerConnectable(this::onConnect);
+    }
+
+    /**
+     * Adds the user to the background syncs, if not already scheduled. Its first sync runs once the data stored
+     * by the previous one is an interval old.
+     */
+    public void schedule(@NonNull final String psUser) {
+        synchronized (this) {
+            if (!isEnabled() || mIntervalsMs.containsKey(psUser)) {
+                return;
+            }
+            mIntervalsMs.put(psUser, mIntervalMs);
+        }
+        mExecutor.execute(() -> queue(psUser, computeFirstDelayMs(psUser)));
+    }
+    //endregion
+
+    //region Event management
+    @Subscribe
+    public void onEventQueryGetReposDidFinish(@NonNull final QueryGetRepos.EventQueryGetReposDidFinish poEvent) {
+        if (!poEvent.query.periodic) {
+            return;
+        }
+        final String lsUser = poEvent.query.user;
+        final long llNextIntervalMs;
+        synchronized (this) {
+            if (poEvent.errorType == AbstractEventQueryDidFinish.ErrorType.CANCELLED) {
+                mIntervalsMs.remove(lsUser);
+                return;
+            }
+            // a query persisted before a restart may belong to a user not scheduled since
+            final Long loIntervalMs = mIntervalsMs.get(lsUser);
+            final long llIntervalMs = loIntervalMs == null ? mIntervalMs : loIntervalMs;
+            if (!poEvent.success && isNetworkFailure(poEvent.errorType)) {
+                mIntervalsMs.put(lsUser, llIntervalMs);
+                mUsersAwaitingNetwork.add(lsUser);
+                return;
+            }
+            if (poEvent.success) {
+                llNextIntervalMs = poEvent.notModified ? Math.min(mMaxIntervalMs, llIntervalMs * 2L) : mIntervalMs;
+            } else {
+                llNextIntervalMs = llIntervalMs;
+            }
+            mIntervalsMs.put(lsUser, llNextIntervalMs);
+        }
+
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("%s synced, success = %b, not modified = %b, next in %d ms", lsUser, poEvent.success, poEvent.notModified, llNextIntervalMs);
+        }
+        mExecutor.execute(() -> queue(lsUser, llNextIntervalMs));
+    }
+    //endregion
+
+    //region Specific job
+    private void onConnect() {
+        final List<String> lloUsers;
+        synchronized (this) {
+            lloUsers = new ArrayList<>(mUsersAwaitingNetwork);
+            mUsersAwaitingNetwork.clear();
+        }
+        for (final String lsUser : lloUsers) {
+            mExecutor.execute(() -> queue(lsUser, 0L));
+        }
+    }
+
+    private void queue(@NonNull final String psUser, final long plDelayMs) {
+        // dropped by the JobManager if a periodic query of this user is already queued, e.g. persisted before a restart
+        mJobManager.addJobInBackground(QueryGetRepos.periodic(psUser, plDelayMs));
+    }
+
+    private long computeFirstDelayMs(@NonNull final String psUser) {
+        try {
+            final SyncStateEntity loSyncState = mDaoSyncState.findBySyncKey(QueryGetRepos.syncKeyFor(psUser));
+            if (loSyncState == null) {
+                return 0L;
+            }
+            return Math.max(0L, loSyncState.updatedAt + mIntervalMs - System.currentTimeMillis());
+        } catch (final SQLException loException) {
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).e(loException, "");
+            }
+            return 0L;
+        }
+    }
+
+    private static boolean isNetworkFailure(final AbstractEventQueryDidFinish.ErrorType poErrorType) {
+        return poErrorType == AbstractEventQueryDidFinish.ErrorType.NETWORK
+                || poErrorType == AbstractEventQueryDidFinish.ErrorType.NETWORK_UNREACHABLE;
+    }
+    //endregion
+}
@@ -1,10 +1,19 @@
 package fr.guddy.androidstarter.rest.queries;
 
-import com.j256.ormlite.dao.Dao;
+import android.support.annotation.NonNull;
+
 import com.mobandme.android.transformer.Transformer;
 import com.orhanobut.logger.Logger;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -15,10 +24,19 @@ import fr.guddy.androidstarter.BuildConfig;
 import fr.guddy.androidstarter.bus.BusManager;
 import fr.guddy.androidstarter.bus.event.AbstractEventQueryDidFinish;
 import fr.guddy.androidstarter.di.modules.ModuleTransformer;
+import fr.guddy.androidstarter.persistence.dao.BatchWriter;
+import fr.guddy.androidstarter.persistence.dao.BulkWriteResult;
 import fr.guddy.androidstarter.persistence.dao.DAORepo;
+import fr.guddy.androidstarter.persistence.dao.DAOSyncState;
 import fr.guddy.androidstarter.persistence.entities.RepoEntity;
+import fr.guddy.androidstarter.persistence.entities.SyncStateEntity;
 import fr.guddy.androidstarter.rest.GitHubService;
 import fr.guddy.androidstarter.rest.dto.DTORepo;
+import fr.guddy.androidstarter.rest.dto.DTORepoProjection;
+import fr.guddy.androidstarter.rest.pagination.PageLinks;
+import fr.guddy.androidstarter.rest.streaming.RepoStreamParser;
+import okhttp3.CacheControl;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Response;
 
@@ -27,6 +45,60 @@ public class QueryGetRepos extends AbstractQuery {
     private static final String TAG = QueryGetRepos.class.getSimpleName();
     private static final boolean DEBUG = true;
 
+    public static final String ENDPOINT = "GET /users/{user}/repos";
+    /**
+     * Tag shared by every query of this type, to cancel them all at once.
+     */
+    public static final String TAG_QUERY_GET_REPOS = ENDPOINT;
+    /**
+     * Tag of the {@link #periodic(String, long) periodic} queries, which have none of the other tags:
+     * cancelling the queries of a screen leaves the background sync alone.
+     */
+    public static final String TAG_PERIODIC_SYNC = ENDPOINT + "#periodic";
+    public static final int MAX_PER_PAGE = 100;
+    private static final int MAX_PARALLEL_PAGE_FETCHES = 4;
+    /**
+     * A pull to refresh revalidates the cache before answering, even if the cached response is still fresh.
+     */
+    private static final String CACHE_CONTROL_REFRESH = "max-age=0";
+    /**
+     * Any other sync takes a fresh cached response but never a stale one: set explicitly, it keeps
+     * {@link fr.guddy.androidstarter.rest.interceptors.CachePolicyInterceptor} from serving a stale response while
+     * revalidating it in background, since that revalidation only updates the HTTP cache and never reaches the database.
+     */
+    private static final String CACHE_CONTROL_SYNC = "max-stale=0";
+    /**
+     * A delta sync cannot see deleted repos, so a full walk is done at least this often.
+     */
+    public static final long FULL_SYNC_INTERVAL_MS = 24L * 60L * 60L * 1000L;
+
+    //region Mode
+    public enum Mode {
+        /**
+         * Every page is fetched one after the other and converted to a list of {@link DTORepo}, stored once the walk is complete.
+         */
+        DEFAULT,
+        /**
+         * Every page is fetched one after the other, its body is read token by token and repos are stored by batches
+         * while being parsed, so that memory usage does not depend on the number of repos. {@link #results} remains null.
+         */
+        STREAMING,
+        /**
+         * Every page is fetched: the first one gives the page count through the {@code Link} header,
+         * the remaining ones are fetched in parallel and each page is stored as soon as it arrives.
+         * {@link #results} remains null.
+         */
+        PAGINATED,
+        /**
+         * Pages are fetched most recently updated first, and paging stops at the first repo older than the watermark
+         * of the previous sync. Only new or changed repos are written, matched by GitHub id.
+         * Every {@link #FULL_SYNC_INTERVAL_MS}, every page is walked to delete the repos which are gone.
+         * {@link #results} remains null.
+         */
+        DELTA
+    }
+    //endregion
+
     //region Injected fields
     @Inject
     transient GitHubService gitHubService;
@@ -35,6 +107,8 @@ public class QueryGetRepos extends AbstractQuery {
     @Inject
     transient DAORepo daoRepo;
     @Inject
+    transient DAOSyncState daoSyncState;
+    @Inject
     @Named(ModuleTransformer.TRANSFORMER_REPO)
     transient Transformer transformerRepo;
     //endregion
@@ -42,14 +116,64 @@ public class QueryGetRepos extends AbstractQuery {
     //region Fields
     public final boolean pullToRefresh;
     public final String user;
+    public final Mode mode;
+    public final int perPage;
+    public final boolean periodic;
     public List<DTORepo> results;
+    /**
+     * Set when the sync found nothing new to store (304 or no row written).
+     */
+    private boolean mNotModified;
+    /**
+     * Set when a pull to refresh attached to this query, see {@link #upgradeFor(AbstractQuery)}.
+     */
+    private transient volatile boolean mRefreshRequested;
     //endregion
 
     //region Constructor matching super
     public QueryGetRepos(final String psUser, final boolean pbPullToRefresh) {
-        super(Priority.MEDIUM);
+        this(psUser, pbPullToRefresh, Mode.DEFAULT);
+    }
+
+    public QueryGetRepos(final String psUser, final boolean pbPullToRefresh, final Mode poMode) {
+        this(psUser, pbPullToRefresh, poMode, MAX_PER_PAGE);
+    }
+
+    /**
+     * @param piPerPage page size, clamped to [1, {@link #MAX_PER_PAGE}]
+     */
+    public QueryGetRepos(final String psUser, final boolean pbPullToRefresh, final Mode poMode, final int piPerPage) {
+        // a pull to refresh is waited for by the user
+        this(pbPullToRefresh ? Priority.HIGH : Priority.MEDIUM, psUser, pbPullToRefresh, poMode, piPerPage);
+    }
+
+    /**
+     * @param poPriority also the priority of its HTTP requests, see {@link fr.guddy.androidstarter.rest.interceptors.PriorityGateInterceptor}
+     */
+    public QueryGetRepos(final Priority poPriority, final String psUser, final boolean pbPullToRefresh, final Mode poMode, final int piPerPage) {
+        this(poPriority, psUser, pbPullToRefresh, poMode, piPerPage, false, 0L);
+    }
+
+    private QueryGetRepos(final Priority poPriority, final String psUser, final boolean pbPullToRefresh, final Mode poMode, final int piPerPage, final boolean pbPeriodic, final long plDelayMs) {
+        // queries for the same user share a group, so that their writes never interleave
+        super(poPriority, pbPeriodic, keyFor(psUser), pbPeriodic ? periodicKeyFor(psUser) : null, plDelayMs, poPriority.defaultRetryPolicy,
+                pbPeriodic ? new String[]{TAG_PERIODIC_SYNC} : new String[]{TAG_QUERY_GET_REPOS, tagForUser(psUser)});
         user = psUser;
         pullToRefresh = pbPullToRefresh;
+        mode = poMode;
+        perPage = Math.max(1, Math.min(MAX_PER_PAGE, piPerPage));
+        periodic = pbPeriodic;
+    }
+    //endregion
+
+    //region Factory
+
+    /**
+     * Background {@link Mode#DELTA} sync, see {@link PeriodicSyncScheduler}. It is persisted, so that it survives a restart,
+     * and there is at most one queued per user: adding another one while the first is waiting does nothing.
+     */
+    public static QueryGetRepos periodic(final String psUser, final long plDelayMs) {
+        return new QueryGetRepos(Priority.LOW, psUser, false, Mode.DELTA, MAX_PER_PAGE, true, plDelayMs);
     }
     //endregion
 
@@ -59,62 +183,386 @@ public class QueryGetRepos extends AbstractQuery {
         ApplicationAndroidStarter.sharedApplication().componentApplication().inject(this);
     }
 
+    /**
+     * Every mode rewrites the same rows, so a query for the same user is coalesced whatever its mode or priority.
+     */
+    @Override
+    public String getInFlightKey() {
+        return keyFor(user);
+    }
+
+    /**
+     * A pull to refresh attached to this query also makes the requests still to be sent revalidate the cache.
+     */
+    @Override
+    protected void upgradeFor(@NonNull final AbstractQuery poAttached) {
+        super.upgradeFor(poAttached);
+        if (poAttached instanceof QueryGetRepos && ((QueryGetRepos) poAttached).pullToRefresh) {
+            mRefreshRequested = true;
+        }
+    }
+
+    @Override
+    public String getEndpoint() {
+        return ENDPOINT;
+    }
+
     @Override
     protected void execute() throws Exception {
-        final Call<List<DTORepo>> loCall = gitHubService.listRepos(user);
-        final Response<List<DTORepo>> loExecute = loCall.execute();
+        switch (mode) {
+            case STREAMING:
+                executeStreaming();
+                break;
+            case PAGINATED:
+                executePaginated();
+                break;
+            case DELTA:
+                executeDelta();
+                break;
+            case DEFAULT:
+            default:
+                executeDefault();
+                break;
+        }
+    }
 
-        if (isCached(loExecute)) {
+    @Override
+    protected void postEventQueryFinished() {
+        final EventQueryGetReposDidFinish loEvent = new EventQueryGetReposDidFinish(this, mSuccess, mErrorType, mThrowable, pullToRefresh, mSuccess && mNotModified, results);
+        busManager.postEventOnMainThread(loEvent);
+        busManager.postEventOnAnyThread(loEvent);
+    }
+
+    @Override
+    public void postEventQueryFinishedNoNetwork() {
+        final EventQueryGetReposDidFinish loEvent = new EventQueryGetReposDidFinish(this, false, AbstractEventQueryDidFinish.ErrorType.NETWORK_UNREACHABLE, null, pullToRefresh, false, null);
+        busManager.postEventOnMainThread(loEvent);
+        busManager.postEventOnAnyThread(loEvent);
+    }
+    //endregion
+
+    //region Specific job
+    private void executeDefault() throws Exception {
+        final PageCall<List<DTORepo>> loPageCall = (final int piPage, final String psCacheControl) -> gitHubService.listRepos(user, piPage, perPage, psCacheControl);
+        final List<DTORepo> lloResults = new ArrayList<>();
+        final List<Response<List<DTORepo>>> lloResponses = new ArrayList<>();
+        int liLastPage = 1;
+        for (int liPage = 1; liPage <= liLastPage; liPage++) {
+            throwIfCancelled();
+            Response<List<DTORepo>> loResponse = fetchPage(loPageCall, liPage);
+            if (liPage == 1) {
+                liLastPage = PageLinks.from(loResponse).getLastPage();
+                if (liLastPage == 1 && isCached(loResponse)) {
+                    // not modified, no need to do anything
+                    mNotModified = true;
+                    return;
+                }
+            }
+            // every page is needed to know which stored repos have been deleted
+            loResponse = requireBody(loPageCall, liPage, loResponse);
+            if (loResponse.body() != null) {
+                lloResults.addAll(loResponse.body());
+            }
+            lloResponses.add(loResponse);
+        }
+
+        results = lloResults;
+
+        final List<RepoEntity> lloRepos = new ArrayList<>(results.size());
+        final Set<Integer> lloSeenIds = new HashSet<>();
+        for (final DTORepo loDTORepo : results) {
+            lloRepos.add(toRepoEntity(loDTORepo));
+            lloSeenIds.add(loDTORepo.id);
+        }
+        throwIfCancelled();
+        final BulkWriteResult loResult = daoRepo.upsertByGitHubId(lloRepos);
+        final int liDeleted = daoRepo.deleteForOwnerExcept(user, lloSeenIds);
+        for (final Response<List<DTORepo>> loResponse : lloResponses) {
+            onStored(loResponse);
+        }
+
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("page count = %d, %s, deleted row count = %d", liLastPage, loResult, liDeleted);
+        }
+    }
+
+    private void executePaginated() throws Exception {
+        final PageCall<List<DTORepoProjection>> loPageCall = getProjectionPageCall();
+        Response<List<DTORepoProjection>> loFirstPage = fetchPage(loPageCall, 1);
+        final int liLastPage = PageLinks.from(loFirstPage).getLastPage();
+
+        if (liLastPage == 1 && isCached(loFirstPage)) {
             // not modified, no need to do anything
+            mNotModified = true;
             return;
         }
+        // every page is needed to know which stored repos have been deleted, so the first one is needed too
+        loFirstPage = requireBody(loPageCall, 1, loFirstPage);
 
-        results = loExecute.body();
+        final Set<Integer> lloSeenIds = new HashSet<>();
+        int liCount = storePage(loFirstPage, lloSeenIds);
+
+        if (liLastPage > 1) {
+            final ExecutorService loExecutor = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL_PAGE_FETCHES, liLastPage - 1));
+            try {
+                final CompletionService<Response<List<DTORepoProjection>>> loCompletionService = new ExecutorCompletionService<>(loExecutor);
+                for (int liPage = 2; liPage <= liLastPage; liPage++) {
+                    final int liPageToFetch = liPage;
+                    loCompletionService.submit(withPriority(() -> fetchPage(liPageToFetch)));
+                }
+                // pages are stored by this thread only, in their arrival order
+                for (int liPage = 2; liPage <= liLastPage; liPage++) {
+                    throwIfCancelled();
+                    liCount += storePage(loCompletionService.take().get(), lloSeenIds);
+                }
+            } finally {
+                loExecutor.shutdownNow();
+            }
+        }
 
-        final int liDeleted = daoRepo.deleteBuilder().delete();
+        throwIfCancelled();
+        final int liDeleted = daoRepo.deleteForOwnerExcept(user, lloSeenIds);
 
         if (BuildConfig.DEBUG && DEBUG) {
-            Logger.t(TAG).d("deleted row count = %d", liDeleted);
+            Logger.t(TAG).d("page count = %d, written row count = %d, deleted row count = %d", liLastPage, liCount, liDeleted);
         }
+    }
 
-        int liCount = 0;
-        for (final DTORepo loDTORepo : results) {
-            final RepoEntity loRepo = transformerRepo.transform(loDTORepo, RepoEntity.class);
-            loRepo.avatarUrl = loDTORepo.owner.avatarUrl;
-            final Dao.CreateOrUpdateStatus loStatus = daoRepo.createOrUpdate(loRepo);
-            if (loStatus.isCreated() || loStatus.isUpdated()) {
-                ++liCount;
+    private void executeDelta() throws Exception {
+        final String lsSyncKey = syncKeyFor(user);
+        final SyncStateEntity loSyncState = daoSyncState.findBySyncKey(lsSyncKey);
+        final String lsWatermark = loSyncState == null ? null : loSyncState.watermark;
+        final boolean lbFullSync = lsWatermark == null || System.currentTimeMillis() - loSyncState.lastFullSyncAt >= FULL_SYNC_INTERVAL_MS;
+        // ids seen by a full sync, the stored repos missing from it have been deleted
+        final Set<Integer> lloSeenIds = lbFullSync ? new HashSet<>() : null;
+
+        String lsNewWatermark = lsWatermark;
+        int liWritten = 0;
+        int liLastPage = 1;
+        boolean lbWatermarkReached = false;
+        final PageCall<List<DTORepoProjection>> loPageCall = getProjectionPageCall();
+        for (int liPage = 1; liPage <= liLastPage && !lbWatermarkReached; liPage++) {
+            throwIfCancelled();
+            Response<List<DTORepoProjection>> loResponse = fetchPage(loPageCall, liPage);
+            if (liPage == 1) {
+                if (!lbFullSync && isCached(loResponse)) {
+                    // the most recently updated repos did not change, neither did the older ones: checked before
+                    // any body is requested, so that an unchanged delta sync costs a single conditional request
+                    daoSyncState.save(lsSyncKey, lsWatermark, false);
+                    mNotModified = true;
+                    return;
+                }
+                liLastPage = PageLinks.from(loResponse).getLastPage();
+            }
+            loResponse = requireBody(loPageCall, liPage, loResponse);
+            final List<DTORepoProjection> lloPage = loResponse.body();
+            if (lloPage == null || lloPage.isEmpty()) {
+                break;
             }
+
+            final List<RepoEntity> lloRepos = new ArrayList<>(lloPage.size());
+            for (final DTORepoProjection loProjection : lloPage) {
+                if (!lbFullSync && lsWatermark != null && loProjection.updatedAt != null && loProjection.updatedAt.compareTo(lsWatermark) < 0) {
+                    // repos updated at the watermark itself are kept: they may have changed after the previous sync in the same second
+                    lbWatermarkReached = true;
+                    break;
+                }
+                if (lloSeenIds != null) {
+                    lloSeenIds.add(loProjection.id);
+                }
+                if (loProjection.updatedAt != null && (lsNewWatermark == null || loProjection.updatedAt.compareTo(lsNewWatermark) > 0)) {
+                    lsNewWatermark = loProjection.updatedAt;
+                }
+                lloRepos.add(toRepoEntity(loProjection));
+            }
+            throwIfCancelled();
+            liWritten += daoRepo.upsertByGitHubId(lloRepos).getWrittenCount();
+            onStored(loResponse);
+        }
+
+        int liDeleted = 0;
+        if (lloSeenIds != null) {
+            throwIfCancelled();
+            // a repo updated while paging moves to the first page and may be missed, the next delta sync restores it
+            liDeleted = daoRepo.deleteForOwnerExcept(user, lloSeenIds);
         }
+        daoSyncState.save(lsSyncKey, lsNewWatermark, lbFullSync);
+        mNotModified = liWritten == 0 && liDeleted == 0;
 
         if (BuildConfig.DEBUG && DEBUG) {
-            Logger.t(TAG).d("created or updated row count = %d", liCount);
+            Logger.t(TAG).d("full = %b, written row count = %d, deleted row count = %d", lbFullSync, liWritten, liDeleted);
         }
     }
 
-    @Override
-    protected void postEventQueryFinished() {
-        final EventQueryGetReposDidFinish loEvent = new EventQueryGetReposDidFinish(this, mSuccess, mErrorType, mThrowable, pullToRefresh, results);
-        busManager.postEventOnMainThread(loEvent);
-        busManager.postEventOnAnyThread(loEvent);
+    private Response<List<DTORepoProjection>> fetchPage(final int piPage) throws IOException {
+        final PageCall<List<DTORepoProjection>> loPageCall = getProjectionPageCall();
+        return requireBody(loPageCall, piPage, fetchPage(loPageCall, piPage));
     }
 
-    @Override
-    public void postEventQueryFinishedNoNetwork() {
-        final EventQueryGetReposDidFinish loEvent = new EventQueryGetReposDidFinish(this, false, AbstractEventQueryDidFinish.ErrorType.NETWORK_UNREACHABLE, null, pullToRefresh, null);
-        busManager.postEventOnMainThread(loEvent);
-        busManager.postEventOnAnyThread(loEvent);
+    private PageCall<List<DTORepoProjection>> getProjectionPageCall() {
+        return (final int piPage, final String psCacheControl) -> gitHubService.listRepos(user, piPage, perPage, getSort(), getDirection(), psCacheControl);
+    }
+
+    private <T> Response<T> fetchPage(final PageCall<T> poPageCall, final int piPage) throws IOException {
+        return checkResponse(register(poPageCall.create(piPage, getCacheControl())).execute());
+    }
+
+    /**
+     * A page answered by a bare 304 (validators from the persistent store, nothing in OkHttp's cache)
+     * has no body, so it is requested again without validators.
+     */
+    private <T> Response<T> requireBody(final PageCall<T> poPageCall, final int piPage, final Response<T> poResponse) throws IOException {
+        if (poResponse.body() == null && isCached(poResponse)) {
+            return checkResponse(register(poPageCall.create(piPage, CacheControl.FORCE_NETWORK.toString())).execute());
+        }
+        return poResponse;
+    }
+
+    private String getCacheControl() {
+        return pullToRefresh || mRefreshRequested ? CACHE_CONTROL_REFRESH : CACHE_CONTROL_SYNC;
+    }
+
+    private String getSort() {
+        return mode == Mode.DELTA ? GitHubService.SORT_UPDATED : null;
+    }
+
+    private String getDirection() {
+        return mode == Mode.DELTA ? GitHubService.DIRECTION_DESC : null;
+    }
+
+    private int storePage(final Response<List<DTORepoProjection>> poResponse, final Set<Integer> ploSeenIds) throws Exception {
+        final List<DTORepoProjection> lloPage = poResponse.body();
+        if (lloPage == null || lloPage.isEmpty()) {
+            return 0;
+        }
+        final List<RepoEntity> lloRepos = new ArrayList<>(lloPage.size());
+        for (final DTORepoProjection loProjection : lloPage) {
+            lloRepos.add(toRepoEntity(loProjection));
+            ploSeenIds.add(loProjection.id);
+        }
+        throwIfCancelled();
+        final int liWritten = daoRepo.upsertByGitHubId(lloRepos).getWrittenCount();
+        onStored(poResponse);
+        return liWritten;
+    }
+
+    private RepoEntity toRepoEntity(final DTORepo poDTORepo) {
+        final RepoEntity loRepo = transformerRepo.transform(poDTORepo, RepoEntity.class);
+        loRepo.avatarUrl = poDTORepo.owner.avatarUrl;
+        loRepo.owner = user;
+        return loRepo;
+    }
+
+    private RepoEntity toRepoEntity(final DTORepoProjection poProjection) {
+        final RepoEntity loRepo = new RepoEntity();
+        loRepo.id = poProjection.id;
+        loRepo.name = poProjection.name;
+        loRepo.description = poProjection.description;
+        loRepo.url = poProjection.url;
+        loRepo.avatarUrl = poProjection.avatarUrl;
+        loRepo.updatedAt = poProjection.updatedAt;
+        loRepo.owner = user;
+        return loRepo;
+    }
+
+    private static String keyFor(final String psUser) {
+        return ENDPOINT + "#" + psUser;
+    }
+
+    /**
+     * @return the key of the {@link SyncStateEntity} of the given user
+     */
+    public static String syncKeyFor(final String psUser) {
+        return keyFor(psUser);
+    }
+
+    private static String periodicKeyFor(final String psUser) {
+        return TAG_PERIODIC_SYNC + "#" + psUser;
+    }
+
+    /**
+     * @return the tag of the queries for the given user, to be given to {@link InFlightQueryRegistry#cancel(String...)}
+     */
+    public static String tagForUser(final String psUser) {
+        return keyFor(psUser);
+    }
+
+    private void executeStreaming() throws Exception {
+        final PageCall<ResponseBody> loPageCall = (final int piPage, final String psCacheControl) -> gitHubService.listReposAsStream(user, piPage, perPage, psCacheControl);
+        final Set<Integer> lloSeenIds = new HashSet<>();
+        final BatchWriter<RepoEntity> loWriter = new BatchWriter<>(BatchWriter.DEFAULT_BATCH_SIZE, (final List<RepoEntity> ploBatch) -> daoRepo.upsertByGitHubId(ploBatch).getWrittenCount());
+        final List<Response<ResponseBody>> lloResponses = new ArrayList<>();
+        int liLastPage = 1;
+        for (int liPage = 1; liPage <= liLastPage; liPage++) {
+            throwIfCancelled();
+            Response<ResponseBody> loResponse = fetchPage(loPageCall, liPage);
+            if (liPage == 1) {
+                liLastPage = PageLinks.from(loResponse).getLastPage();
+                if (liLastPage == 1 && isCached(loResponse)) {
+                    // not modified, no need to do anything
+                    closeBody(loResponse);
+                    mNotModified = true;
+                    return;
+                }
+            }
+            // every page is needed to know which stored repos have been deleted
+            loResponse = requireBody(loPageCall, liPage, loResponse);
+
+            final ResponseBody loBody = loResponse.body();
+            try {
+                if (loBody != null) {
+                    RepoStreamParser.parse(loBody.byteStream(), (final DTORepoProjection poProjection) -> {
+                        throwIfCancelled();
+                        lloSeenIds.add(poProjection.id);
+                        loWriter.add(toRepoEntity(poProjection));
+                    });
+                }
+            } finally {
+                closeBody(loResponse);
+            }
+            lloResponses.add(loResponse);
+        }
+        loWriter.flush();
+
+        // deleting before the last page has been parsed would drop the repos of the pages not read yet
+        throwIfCancelled();
+        final int liDeleted = daoRepo.deleteForOwnerExcept(user, lloSeenIds);
+        for (final Response<ResponseBody> loResponse : lloResponses) {
+            onStored(loResponse);
+        }
+
+        if (BuildConfig.DEBUG && DEBUG) {
+            Logger.t(TAG).d("page count = %d, written row count = %d, deleted row count = %d", liLastPage, loWriter.getWrittenCount(), liDeleted);
+        }
+    }
+
+    private static void closeBody(final Response<ResponseBody> poResponse) {
+        if (poResponse.body() != null) {
+            poResponse.body().close();
+        }
     }
     //endregion
 
+    /**
+     * Builds the call fetching one page of repos with the given {@code Cache-Control}.
+     */
+    private interface PageCall<T> {
+        Call<T> create(final int piPage, final String psCacheControl);
+    }
+
     //region Dedicated EventQueryDidFinish
     public static final class EventQueryGetReposDidFinish extends AbstractEventQueryDidFinish<QueryGetRepos> {
         public final boolean pullToRefresh;
+        /**
+         * True if the query succeeded without finding anything new to store.
+         */
+        public final boolean notModified;
         public final List<DTORepo> results;
 
-        public EventQueryGetReposDidFinish(final QueryGetRepos poQuery, final boolean pbSuccess, final ErrorType poErrorType, final Throwable poThrowable, final boolean pbPullToRefresh, final List<DTORepo> ploResults) {
+        public EventQueryGetReposDidFinish(final QueryGetRepos poQuery, final boolean pbSuccess, final ErrorType poErrorType, final Throwable poThrowable, final boolean pbPullToRefresh, final boolean pbNotModified, final List<DTORepo> ploResults) {
             super(poQuery, pbSuccess, poErrorType, poThrowable);
             pullToRefresh = pbPullToRefresh;
+            notModified = pbNotModified;
             results = ploResults;
         }
     }
@@ -0,0 +1,165 @@
+package fr.guddy.androidstarter.rest.queries;
+
+import android.support.annotation.NonNull;
+
+import com.birbit.android.jobqueue.RetryConstraint;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.HttpURLConnection;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+import fr.guddy.androidstarter.rest.error_handling.RateLimitException;
+import fr.guddy.androidstarter.rest.error_handling.RetrofitException;
+import okhttp3.Headers;
+import retrofit2.Response;
+
+/**
+ * Decides whether a failed {@link AbstractQuery} should run again, and when.
+ * <ul>
+ * <li>IO errors and 5xx responses are retried with an exponential backoff and jitter</li>
+ * <li>rate-limited responses are retried once the server says so ({@code Retry-After} or {@code X-RateLimit-Reset}),
+ * requests held back by the client-side governor once it allows them</li>
+ * <li>any other 4xx response, and any other error, is never retried</li>
+ * </ul>
+ * It is serializable, as it is held by jobs which may be persisted.
+ */
+public class RetryPolicy implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+    private static final String HEADER_RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+    private static final String HEADER_RATE_LIMIT_RESET = "X-RateLimit-Reset";
+
+    private static final Random sRandom = new Random();
+
+    //region Fields
+    public final int maxRunCount;
+    public final long initialBackoffMs;
+    public final long maxBackoffMs;
+    //endregion
+
+    //region Constructor
+
+    /**
+     * @param piMaxRunCount     total number of runs, the first one included
+     * @param plInitialBackoffMs delay before the second run, doubled for each following run
+     * @param plMaxBackoffMs     upper bound of the computed backoff, server hints are not capped
+     */
+    public RetryPolicy(final int piMaxRunCount, final long plInitialBackoffMs, final long plMaxBackoffMs) {
+        maxRunCount = Math.max(1, piMaxRunCount);
+        initialBackoffMs = Math.max(0L, plInitialBackoffMs);
+        maxBackoffMs = Math.max(initialBackoffMs, plMaxBackoffMs);
+    }
+    //endregion
+
+    //region Visible API
+    public boolean isRetryable(@NonNull final Throwable poThrowable) {
+        final Throwable loCause = unwrap(poThrowable);
+        if (loCause instanceof IOException) {
+            return true;
+        }
+        if (loCause instanceof RetrofitException) {
+            final RetrofitException loException = (RetrofitException) loCause;
+            switch (loException.getKind()) {
+                case NETWORK:
+                    return true;
+                case HTTP:
+                    return isRetryable(loException.getResponse());
+                case UNEXPECTED:
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param piRunCount number of runs done so far, the failed one included
+     */
+    public long getDelayMs(@NonNull final Throwable poThrowable, final int piRunCount) {
+        final Throwable loCause = unwrap(poThrowable);
+        if (loCause instanceof RateLimitException) {
+            return ((RateLimitException) loCause).retryAfterMs;
+        }
+        if (loCause instanceof RetrofitException && ((RetrofitException) loCause).getResponse() != null) {
+            final long llServerDelayMs = getServerDelayMs(((RetrofitException) loCause).getResponse().headers());
+            if (llServerDelayMs >= 0L) {
+                return llServerDelayMs;
+            }
+        }
+        return getBackoffMs(piRunCount);
+    }
+
+    @NonNull
+    public RetryConstraint getRetryConstraint(@NonNull final Throwable poThrowable, final int piRunCount) {
+        if (!isRetryable(poThrowable)) {
+            return RetryConstraint.CANCEL;
+        }
+        final RetryConstraint loConstraint = new RetryConstraint(true);
+        loConstraint.setNewDelayInMs(getDelayMs(poThrowable, piRunCount));
+        return loConstraint;
+    }
+    //endregion
+
+    //region Specific job
+    private static boolean isRetryable(final Response<?> poResponse) {
+        if (poResponse == null) {
+            return false;
+        }
+        final int liCode = poResponse.code();
+        if (liCode >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+            return true;
+        }
+        // GitHub answers 403 once the rate limit is exhausted, other APIs use 429
+        return liCode == HTTP_TOO_MANY_REQUESTS
+                || (liCode == HttpURLConnection.HTTP_FORBIDDEN && (poResponse.headers().get(HEADER_RETRY_AFTER) != null || "0".equals(poResponse.headers().get(HEADER_RATE_LIMIT_REMAINING))));
+    }
+
+    /**
+     * @return the delay asked by the server, or -1 if it gave none
+     */
+    private static long getServerDelayMs(@NonNull final Headers poHeaders) {
+        final String lsRetryAfter = poHeaders.get(HEADER_RETRY_AFTER);
+        if (lsRetryAfter != null) {
+            try {
+                return Math.max(0L, Long.parseLong(lsRetryAfter.trim()) * 1000L);
+            } catch (final NumberFormatException loException) {
+                // HTTP-date form, fall back to the reset time or the backoff
+            }
+        }
+        final String lsReset = poHeaders.get(HEADER_RATE_LIMIT_RESET);
+        if (lsReset != null && "0".equals(poHeaders.get(HEADER_RATE_LIMIT_REMAINING))) {
+            try {
+                // epoch seconds
+                return Math.max(0L, Long.parseLong(lsReset.trim()) * 1000L - System.currentTimeMillis());
+            } catch (final NumberFormatException loException) {
+                return -1L;
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * "Equal jitter": half of the exponential delay is fixed, the other half is random.
+     */
+    private long getBackoffMs(final int piRunCount) {
+        final int liShift = Math.min(30, Math.max(0, piRunCount - 1));
+        final long llBackoffMs = Math.min(maxBackoffMs, initialBackoffMs << liShift);
+        final long llHalf = llBackoffMs / 2L;
+        synchronized (sRandom) {
+            return llHalf + (long) (sRandom.nextDouble() * (llBackoffMs - llHalf));
+        }
+    }
+
+    private static Throwable unwrap(@NonNull final Throwable poThrowable) {
+        Throwable loThrowable = poThrowable;
+        while (loThrowable instanceof ExecutionException && loThrowable.getCause() != null) {
+            loThrowable = loThrowable.getCause();
+        }
+        return loThrowable;
+    }
+    //endregion
+}
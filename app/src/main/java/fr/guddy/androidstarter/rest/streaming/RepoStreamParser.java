@@ -0,0 +1,57 @@
+package fr.guddy.androidstarter.rest.streaming;
+
+import android.support.annotation.NonNull;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.InputStream;
+
+import fr.guddy.androidstarter.rest.dto.DTORepoProjection;
+
+/**
+ * Reads a GitHub repo list token by token and emits one {@link DTORepoProjection} per array element.
+ * <p>
+ * Repos are bound by {@link DTORepoProjection.Deserializer}, so only the fields stored in the REPO table
+ * are materialized. At most one repo is held in memory at a time.
+ * </p>
+ */
+public final class RepoStreamParser {
+    private static final JsonFactory sJsonFactory = new JsonFactory();
+
+    //region Listener
+    public interface Listener {
+        void onRepo(@NonNull final DTORepoProjection poRepo) throws Exception;
+    }
+    //endregion
+
+    //region Constructor
+    private RepoStreamParser() {
+    }
+    //endregion
+
+    //region Visible API
+
+    /**
+     * @return the number of repos emitted to the listener
+     */
+    public static int parse(@NonNull final InputStream poInputStream, @NonNull final Listener poListener) throws Exception {
+        final JsonParser loParser = sJsonFactory.createParser(poInputStream);
+        try {
+            if (loParser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(loParser, "Expected an array of repos");
+            }
+            int liCount = 0;
+            while (loParser.nextToken() == JsonToken.START_OBJECT) {
+                poListener.onRepo(DTORepoProjection.Deserializer.read(loParser));
+                ++liCount;
+            }
+            return liCount;
+        } finally {
+            loParser.close();
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,85 @@
+package fr.guddy.androidstarter.rest.warmup;
+
+import android.support.annotation.NonNull;
+
+import com.orhanobut.logger.Logger;
+
+import java.io.IOException;
+
+import dagger.Lazy;
+import fr.guddy.androidstarter.BuildConfig;
+import fr.guddy.androidstarter.IEnvironment;
+import okhttp3.CacheControl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Opens a connection to the API host ahead of the first query, so that DNS, TCP and TLS setup
+ * are not paid during the first user-visible load. The connection then stays in the OkHttp pool.
+ * <p>
+ * {@code /rate_limit} is requested: it does not count against the rate limit, and its headers
+ * seed the rate-limit governor.
+ * </p>
+ */
+public class ConnectionWarmUp {
+    private static final String TAG = ConnectionWarmUp.class.getSimpleName();
+    private static final boolean DEBUG = true;
+
+    private static final String PATH = "/rate_limit";
+
+    //region Fields
+    private final IEnvironment mEnvironment;
+    private final Lazy<OkHttpClient> mOkHttpClient;
+    private final String mBaseUrl;
+    //endregion
+
+    //region Constructor
+    public ConnectionWarmUp(@NonNull final IEnvironment poEnvironment, @NonNull final Lazy<OkHttpClient> poOkHttpClient, @NonNull final String psBaseUrl) {
+        mEnvironment = poEnvironment;
+        mOkHttpClient = poOkHttpClient;
+        mBaseUrl = psBaseUrl;
+    }
+    //endregion
+
+    //region Visible API
+
+    /**
+     * Starts the warm-up on a background thread, if enabled by the environment. The client is built on that thread too.
+     */
+    public void start() {
+        if (!mEnvironment.isConnectionWarmUpEnabled()) {
+            return;
+        }
+        final Thread loThread = new Thread(this::warmUp, TAG);
+        loThread.setPriority(Thread.MIN_PRIORITY);
+        loThread.start();
+    }
+    //endregion
+
+    //region Specific job
+    private void warmUp() {
+        final Request loRequest = new Request.Builder()
+                .url(mBaseUrl + PATH)
+                .cacheControl(CacheControl.FORCE_NETWORK)
+                .build();
+        final long llStart = System.currentTimeMillis();
+        Response loResponse = null;
+        try {
+            loResponse = mOkHttpClient.get().newCall(loRequest).execute();
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).d("connection ready in %d ms (HTTP %d)", System.currentTimeMillis() - llStart, loResponse.code());
+            }
+        } catch (final IOException loException) {
+            // best effort: the first query will connect by itself
+            if (BuildConfig.DEBUG && DEBUG) {
+                Logger.t(TAG).e(loException, "");
+            }
+        } finally {
+            if (loResponse != null) {
+                loResponse.close();
+            }
+        }
+    }
+    //endregion
+}